@@ -0,0 +1,66 @@
+package com.jencys.books.benchmark;
+
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link BookMapper} with the {@code BeanUtils.copyProperties} calls it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMappingBenchmark {
+    private final BookMapper bookMapper = new BookMapper();
+    private Book book;
+    private BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        book = new Book(1L, "Clean Code", "Robert C. Martin", "9780132350884", 2008,
+                "A Handbook of Agile Software Craftsmanship", 0L);
+        bookDTO = bookMapper.toDTO(book);
+    }
+
+    @Benchmark
+    public BookDTO beanUtilsToDTO() {
+        BookDTO dto = new BookDTO();
+        BeanUtils.copyProperties(book, dto);
+        return dto;
+    }
+
+    @Benchmark
+    public BookDTO mapperToDTO() {
+        return bookMapper.toDTO(book);
+    }
+
+    @Benchmark
+    public Book beanUtilsUpdateEntity() {
+        Book entity = new Book();
+        BeanUtils.copyProperties(bookDTO, entity, "id");
+        return entity;
+    }
+
+    @Benchmark
+    public Book mapperUpdateEntity() {
+        Book entity = new Book();
+        bookMapper.updateEntity(bookDTO, entity);
+        return entity;
+    }
+}
@@ -0,0 +1,97 @@
+package com.jencys.books.benchmark;
+
+import com.jencys.books.dto.BookBatchDTO;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the BookService read paths: keyset pages, cached and bulk lookups and title/author search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class BookReadBenchmark {
+
+    @Benchmark
+    public BookPageDTO getAllBooksFirstPage(CatalogueState state) {
+        return state.bookService.getAllBooks(null, null, null);
+    }
+
+    // id/title/author only, as list views request it
+    @Benchmark
+    public BookPageDTO getAllBooksFirstPageSelectedFields(CatalogueState state) {
+        return state.bookService.getAllBooks(null, null, "title,author");
+    }
+
+    @Benchmark
+    public BookPageDTO getAllBooksRandomPage(CatalogueState state) {
+        long after = ThreadLocalRandom.current().nextLong(state.rows);
+        return state.bookService.getAllBooks(after, null, null);
+    }
+
+    @Benchmark
+    public BookDTO getBook(CatalogueState state) {
+        long id = 1 + ThreadLocalRandom.current().nextLong(state.rows);
+        return state.bookService.getBook(id);
+    }
+
+    // parsed and resolved to an id through the in-memory ISBN index, then served like getBook
+    @Benchmark
+    public BookDTO getBookByIsbn(CatalogueState state) {
+        long i = ThreadLocalRandom.current().nextLong(state.rows);
+        return state.bookService.getBookByIsbn(CatalogueState.isbn(i));
+    }
+
+    // 100 random ids, as a client resolving references would send them
+    @Benchmark
+    public BookBatchDTO getBooks(CatalogueState state) {
+        List<Long> ids = ThreadLocalRandom.current().longs(100, 1, state.rows + 1L).boxed().toList();
+        return state.bookService.getBooks(ids);
+    }
+
+    // matches exactly one book
+    @Benchmark
+    public void searchBooksByTitleSelective(CatalogueState state, Blackhole blackhole) {
+        long i = ThreadLocalRandom.current().nextLong(state.rows);
+        state.bookService.searchBooksByTitle("Volume " + i + " Edition", null, blackhole::consume);
+    }
+
+    // a single author prefix, so a fixed fraction of the catalogue
+    @Benchmark
+    public void searchBooksByAuthor(CatalogueState state, Blackhole blackhole) {
+        int i = ThreadLocalRandom.current().nextInt(1000);
+        String lastName = CatalogueState.LAST_NAMES[i % CatalogueState.LAST_NAMES.length];
+        state.bookService.searchBooksByAuthor(lastName + " " + i, null, blackhole::consume);
+    }
+
+    // a keystroke of type-ahead, with a transposed pair of letters once the query is long enough to allow it
+    @Benchmark
+    public List<BookSuggestionDTO> suggest(CatalogueState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String first = CatalogueState.TITLE_WORDS[random.nextInt(CatalogueState.TITLE_WORDS.length)];
+        String second = CatalogueState.TITLE_WORDS[random.nextInt(CatalogueState.TITLE_WORDS.length)];
+        String query = (first + " " + second).substring(0, 3 + random.nextInt(8));
+        if (query.length() >= 8) {
+            query = query.substring(0, 5) + query.charAt(6) + query.charAt(5) + query.substring(7);
+        }
+        return state.bookService.suggest(query, null);
+    }
+}
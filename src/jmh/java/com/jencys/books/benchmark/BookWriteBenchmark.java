@@ -0,0 +1,43 @@
+package com.jencys.books.benchmark;
+
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.mapper.BookMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * createBook throughput on top of a seeded catalogue; every invocation inserts a fresh ISBN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class BookWriteBenchmark {
+    private final BookMapper bookMapper = new BookMapper();
+    // starts past any seeded row so generated ISBNs never collide
+    private final AtomicLong sequence = new AtomicLong(10_000_000L);
+
+    @Benchmark
+    public BookDTO createBook(CatalogueState state) {
+        return state.bookService.createBook(bookMapper.toDTO(CatalogueState.book(sequence.incrementAndGet())));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BookDTO createBookConcurrent(CatalogueState state) {
+        return state.bookService.createBook(bookMapper.toDTO(CatalogueState.book(sequence.incrementAndGet())));
+    }
+}
@@ -0,0 +1,99 @@
+package com.jencys.books.benchmark;
+
+import com.jencys.books.BooksApplication;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookBatchRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
+import com.jencys.books.service.BookService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server against an embedded H2 database seeded with
+ * {@code rows} deterministic books.
+ */
+@State(Scope.Benchmark)
+public class CatalogueState {
+    static final String[] TITLE_WORDS = {
+            "Clean", "Code", "Domain", "Driven", "Design", "Patterns", "Refactoring", "Java", "Effective",
+            "Concurrency", "Practice", "Systems", "Data", "Intensive", "Applications", "Release", "Distributed",
+            "Algorithms", "Structures", "Pragmatic", "Programmer", "Enterprise", "Architecture", "Microservices"
+    };
+    static final String[] LAST_NAMES = {
+            "Martin", "Fowler", "Evans", "Bloch", "Goetz", "Kleppmann", "Nygard", "Hunt", "Thomas", "Beck",
+            "Gamma", "Helm", "Johnson", "Vlissides", "Newman", "Richardson", "Knuth", "Sedgewick", "Wayne", "Cormen"
+    };
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BooksApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench" + rows + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        seed(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        BookBatchRepository bookBatchRepository = context.getBean(BookBatchRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        for (int from = 0; from < rows; from += SEED_CHUNK) {
+            List<Book> books = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, rows); i++) {
+                books.add(book(i));
+            }
+            transactionTemplate.executeWithoutResult(status -> bookBatchRepository.insertAll(books));
+        }
+        // the index was built from the empty table when the context started
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(BookIsbnIndex.class).rebuild();
+    }
+
+    static Book book(long i) {
+        Book book = new Book();
+        book.setTitle(TITLE_WORDS[(int) (i % TITLE_WORDS.length)] + " "
+                + TITLE_WORDS[(int) ((i / TITLE_WORDS.length) % TITLE_WORDS.length)] + " Volume " + i + " Edition");
+        book.setAuthor("Author " + LAST_NAMES[(int) (i % LAST_NAMES.length)] + " " + (i % 1000));
+        book.setIsbn(isbn(i));
+        book.setPublicationYear(1950 + (int) (i % 75));
+        book.setDescription("Description of book " + i);
+        return book;
+    }
+
+    // a valid ISBN-13 per book, so seeded books are in the ISBN index
+    static String isbn(long i) {
+        String twelveDigits = String.format("978%09d", i);
+        int sum = 0;
+        for (int d = 0; d < twelveDigits.length(); d++) {
+            sum += (twelveDigits.charAt(d) - '0') * (d % 2 == 0 ? 1 : 3);
+        }
+        return twelveDigits + (10 - sum % 10) % 10;
+    }
+}
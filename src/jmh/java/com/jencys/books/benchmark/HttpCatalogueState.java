@@ -0,0 +1,68 @@
+package com.jencys.books.benchmark;
+
+import com.jencys.books.BooksApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+
+/**
+ * Runs the full web application on a random port, with request handling on either the default
+ * Tomcat platform-thread pool or virtual threads (the {@code virtual} profile). Both arms get the same
+ * connection pool, so only the threading model differs.
+ */
+@State(Scope.Benchmark)
+public class HttpCatalogueState {
+
+    // command-line arguments, so they win over the pool tuning in the virtual profile; the default
+    // connection timeout lets overload queue for a connection in both arms instead of failing
+    private static final String[] POOL = {
+            "--spring.datasource.hikari.maximum-pool-size=30",
+            "--spring.datasource.hikari.minimum-idle=30",
+            "--spring.datasource.hikari.connection-timeout=30000"
+    };
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"100000"})
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BooksApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:http" + threads + rows + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.open-in-view=false",
+                        // the benchmark client is one noisy client by design
+                        "books.rate-limit.enabled=false",
+                        "logging.level.root=WARN");
+        if ("virtual".equals(threads)) {
+            builder.profiles("virtual");
+        }
+        context = builder.run(POOL);
+        CatalogueState.seed(context, rows);
+
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/books";
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.jencys.books.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load test comparing platform-thread and virtual-thread request handling.
+ * Throughput mode reports requests/ms and sample-time mode reports p50/p99/p99.9 latency.
+ * Client threads share the machine with the server, so compare the two modes rather than
+ * reading the absolute numbers.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.include=HttpLoadBenchmark</pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class HttpLoadBenchmark {
+
+    @Benchmark
+    public int getBook(HttpCatalogueState state) throws IOException, InterruptedException {
+        long id = 1 + ThreadLocalRandom.current().nextLong(state.rows);
+        return send(state, "/" + id);
+    }
+
+    @Benchmark
+    public int getAllBooksPage(HttpCatalogueState state) throws IOException, InterruptedException {
+        long after = ThreadLocalRandom.current().nextLong(state.rows);
+        return send(state, "?after=" + after);
+    }
+
+    @Benchmark
+    public int searchBooksByAuthor(HttpCatalogueState state) throws IOException, InterruptedException {
+        int i = ThreadLocalRandom.current().nextInt(1000);
+        String lastName = CatalogueState.LAST_NAMES[i % CatalogueState.LAST_NAMES.length];
+        return send(state, "/search/author?author=" + lastName + "%20" + i);
+    }
+
+    private static int send(HttpCatalogueState state, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(state.baseUrl + path)).GET().build();
+        return state.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,186 @@
+package com.jencys.books.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from launching a new JVM with the packaged application until its first successful
+ * {@code GET /api/books/{id}}: what an instance added by autoscaling makes clients wait. {@code default} runs
+ * the jar as is; {@code startup} adds the AOT-processed context, the CDS archive and the {@code startup}
+ * profile. Both read a book from the same H2 file, seeded once per trial.
+ * <p>
+ * Needs {@code mvn -Pstartup package} first, which leaves the extracted jar and the archive in
+ * {@code target/startup}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    @Param({"default", "startup"})
+    public String mode;
+
+    // the build directory `mvn -Pstartup package` trained the archive from; the archive records relative paths
+    @Param({"target"})
+    public String directory;
+
+    private Path workingDirectory;
+    private String jar;
+    private Path database;
+    private HttpClient client;
+    private long bookId;
+
+    private Process process;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workingDirectory = Path.of(directory).toAbsolutePath();
+        Path startup = workingDirectory.resolve("startup");
+        if (!Files.isRegularFile(startup.resolve("books.jsa"))) {
+            throw new IllegalStateException("No CDS archive in " + startup + ", run mvn -Pstartup package first");
+        }
+        try (Stream<Path> files = Files.list(startup)) {
+            jar = "startup/" + files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No extracted jar in " + startup));
+        }
+        Path benchmark = Files.createDirectories(workingDirectory.resolve("startup-benchmark"));
+        database = benchmark.resolve("books");
+        Files.deleteIfExists(benchmark.resolve("books.mv.db"));
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        // a plain start creates the schema and the book every measured start then reads
+        launch(false);
+        try {
+            awaitStatus(URI.create(baseUrl()), 200);
+            String book = """
+                    {"title":"Startup","author":"Benchmark","isbn":"9780134685991","publicationYear":2018}""";
+            HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(baseUrl()))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(book))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (created.statusCode() != 201) {
+                throw new IllegalStateException("Could not seed a book: " + created.statusCode() + " "
+                        + created.body());
+            }
+            bookId = new ObjectMapper().readTree(created.body()).get("id").asLong();
+        } finally {
+            stop();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopInstance() throws InterruptedException {
+        stop();
+    }
+
+    @Benchmark
+    public int firstBookLookup() throws Exception {
+        launch("startup".equals(mode));
+        return awaitStatus(URI.create(baseUrl() + "/" + bookId), 200);
+    }
+
+    private void launch(boolean optimised) throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (optimised) {
+            command.add("-XX:SharedArchiveFile=startup/books.jsa");
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.add("-jar");
+        command.add(jar);
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:file:" + database);
+        if (optimised) {
+            command.add("--spring.profiles.active=startup");
+        }
+        process = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log().toFile())
+                .start();
+    }
+
+    // polls until the instance answers with the status; refused connections mean it is still starting
+    private int awaitStatus(URI uri, int status) throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue()
+                        + ", see " + log());
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == status) {
+                    return response.statusCode();
+                }
+            } catch (IOException notListening) {
+                // not accepting connections yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No " + status + " from " + uri + " within " + STARTUP_TIMEOUT);
+    }
+
+    private Path log() {
+        return workingDirectory.resolve("startup-benchmark").resolve(mode + ".log");
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + port + "/api/books";
+    }
+
+    private void stop() throws InterruptedException {
+        if (process != null) {
+            // a graceful stop, so H2 closes the database file before the next start opens it
+            process.destroy();
+            process.waitFor();
+            process = null;
+        }
+    }
+}
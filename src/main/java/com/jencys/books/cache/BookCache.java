@@ -0,0 +1,109 @@
+package com.jencys.books.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Component
+public class BookCache implements MeterBinder {
+    private final Cache<Long, BookDTO> cache;
+    // bumped by every invalidation so a load that raced with a write is never cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookCache(BooksProperties booksProperties) {
+        BooksProperties.Cache config = booksProperties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTimeToLive())
+                .recordStats()
+                .build();
+    }
+
+    public BookDTO get(Long id, Function<Long, BookDTO> loader) {
+        BookDTO cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observed = generation.get();
+        BookDTO loaded = loader.apply(id);
+        // compute() serialises with invalidate() on the same key: either the invalidation runs
+        // after this put and removes it, or it ran before and changed the generation
+        cache.asMap().compute(id, (key, current) -> generation.get() == observed ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * Serves the cached ids and loads all the others with a single call to the loader, which returns only the
+     * ids it found. Missing ids are absent from the result.
+     */
+    public Map<Long, BookDTO> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, BookDTO>> loader) {
+        Map<Long, BookDTO> result = new HashMap<>(cache.getAllPresent(ids));
+        Set<Long> misses = new LinkedHashSet<>(ids);
+        misses.removeAll(result.keySet());
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        long observed = generation.get();
+        Map<Long, BookDTO> loaded = loader.apply(misses);
+        // same guard as get(): a load that raced with an invalidation is returned but not cached
+        loaded.forEach((id, book) ->
+                cache.asMap().compute(id, (key, current) -> generation.get() == observed ? book : current));
+        result.putAll(loaded);
+        return result;
+    }
+
+    public void invalidate(Long id) {
+        cache.asMap().compute(id, (key, current) -> {
+            generation.incrementAndGet();
+            return null;
+        });
+    }
+
+    /**
+     * Invalidates the book unless the cached copy is already at {@code version} or later, for writes reported
+     * by other nodes, which may arrive after the newer copy was loaded.
+     */
+    public void invalidateOlderThan(Long id, long version) {
+        cache.asMap().compute(id, (key, current) -> {
+            if (current != null && current.getVersion() != null && current.getVersion() >= version) {
+                return current;
+            }
+            generation.incrementAndGet();
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "books");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,23 @@
+package com.jencys.books.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalogue-wide change counter used as the validator for collection responses. The start-up epoch
+ * is part of the token so validators issued before a restart never match.
+ */
+@Component
+public class CatalogueVersion {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong changes = new AtomicLong();
+
+    public void increment() {
+        changes.incrementAndGet();
+    }
+
+    public String current() {
+        return epoch + "-" + changes.get();
+    }
+}
@@ -0,0 +1,276 @@
+package com.jencys.books.changefeed;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookChangeDTO;
+import com.jencys.books.dto.BookChangePageDTO;
+import com.jencys.books.exception.ChangeFeedExpiredException;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.model.BookChange;
+import com.jencys.books.repository.BookChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Change feed over the {@link BookChange} outbox. Subscribers receive every change after the sequence they
+ * resume from, pushed as server-sent events when a write commits.
+ * <p>
+ * Sequence numbers are assigned on insert but become visible on commit, so a later number can appear before
+ * an earlier one. Changes are only released up to the horizon: the sequence below which every number has
+ * either been seen or been missing for longer than the gap timeout, i.e. belonged to a rolled-back insert.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookChangeFeed implements MeterBinder {
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+    private final BookChangeRepository bookChangeRepository;
+    private final BookMapper bookMapper;
+    private final BooksProperties booksProperties;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+
+    // guarded by this
+    private long horizon;
+    private Instant gapSince;
+    private long purgedThrough;
+
+    public BookChangeFeed(BookChangeRepository bookChangeRepository, BookMapper bookMapper,
+                          BooksProperties booksProperties) {
+        this.bookChangeRepository = bookChangeRepository;
+        this.bookMapper = bookMapper;
+        this.booksProperties = booksProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        synchronized (this) {
+            horizon = bookChangeRepository.findLatestSequence();
+            purgedThrough = oldestRetained();
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "books-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeat = booksProperties.getChanges().getHeartbeatInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purge, 0, PURGE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Opens an event stream of the changes after {@code after}, or of those to come when it is null. Each
+     * event carries its sequence as the id, so a reconnecting client resumes with {@code Last-Event-ID}.
+     *
+     * @throws ChangeFeedExpiredException when changes after {@code after} have already been purged
+     */
+    public SseEmitter subscribe(Long after) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(), resolveCursor(after));
+        Runnable remove = () -> subscribers.remove(subscriber);
+        subscriber.emitter.onCompletion(remove);
+        subscriber.emitter.onTimeout(remove);
+        subscriber.emitter.onError(error -> remove.run());
+        subscribers.add(subscriber);
+        // catches the new subscriber up from its cursor
+        publish();
+        return subscriber.emitter;
+    }
+
+    /**
+     * The changes after {@code after} (the current sequence when null) as a page for clients that poll.
+     */
+    public BookChangePageDTO changesAfter(Long after, Integer size) {
+        long from = resolveCursor(after);
+        long to = advanceHorizon();
+        List<BookChangeDTO> content = from >= to ? List.of() : bookChangeRepository
+                .findByIdBetweenOrderByIdAsc(from + 1, to, Limit.of(resolvePageSize(size))).stream()
+                .map(bookMapper::toDTO)
+                .collect(Collectors.toList());
+        long nextCursor = content.isEmpty() ? from : content.get(content.size() - 1).getSequence();
+        return new BookChangePageDTO(content, nextCursor);
+    }
+
+    /**
+     * Signals that changes were committed. Called from after-commit callbacks, so the fan-out to subscribers
+     * runs on the feed thread, and signals arriving while a dispatch is pending are folded into it.
+     */
+    public void publish() {
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            executor.execute(this::dispatch);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.changes.subscribers", subscribers, List::size)
+                .description("Open change feed event streams")
+                .register(registry);
+    }
+
+    void dispatch() {
+        dispatchScheduled.set(false);
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            long to = advanceHorizon();
+            long from = subscribers.stream().mapToLong(subscriber -> subscriber.lastSequence).min().orElse(to);
+            int batchSize = booksProperties.getChanges().getBatchSize();
+            while (from < to) {
+                List<BookChangeDTO> changes = bookChangeRepository
+                        .findByIdBetweenOrderByIdAsc(from + 1, to, Limit.of(batchSize)).stream()
+                        .map(bookMapper::toDTO)
+                        .collect(Collectors.toList());
+                if (changes.isEmpty()) {
+                    break;
+                }
+                subscribers.forEach(subscriber -> subscriber.send(changes));
+                from = changes.get(changes.size() - 1).getSequence();
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not dispatch book changes", e);
+        }
+    }
+
+    private synchronized long resolveCursor(Long after) {
+        if (after == null) {
+            return advanceHorizon();
+        }
+        if (after < purgedThrough) {
+            throw new ChangeFeedExpiredException("Changes after sequence " + after
+                    + " are no longer retained; reload the catalogue and follow the feed from the current sequence");
+        }
+        return after;
+    }
+
+    private synchronized long advanceHorizon() {
+        BooksProperties.Changes config = booksProperties.getChanges();
+        List<Long> ids;
+        do {
+            ids = bookChangeRepository.findIdsAfter(horizon, Limit.of(config.getBatchSize()));
+            for (long id : ids) {
+                if (id != horizon + 1 && !gapExpired(config.getGapTimeout())) {
+                    return horizon;
+                }
+                horizon = id;
+                gapSince = null;
+            }
+        } while (ids.size() == config.getBatchSize());
+        return horizon;
+    }
+
+    private boolean gapExpired(Duration gapTimeout) {
+        Instant now = Instant.now();
+        if (gapSince == null) {
+            gapSince = now;
+            // nothing else may be committed to trigger the dispatch that releases the changes past the gap
+            if (executor != null && !executor.isShutdown()) {
+                executor.schedule(this::publish, gapTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return Duration.between(gapSince, now).compareTo(gapTimeout) >= 0;
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    private void purge() {
+        try {
+            Instant before = Instant.now().minus(booksProperties.getChanges().getRetention());
+            int purged = bookChangeRepository.deleteChangedBefore(before);
+            if (purged > 0) {
+                synchronized (this) {
+                    purgedThrough = oldestRetained();
+                }
+                log.info("Purged {} book changes older than {}", purged, before);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not purge book changes", e);
+        }
+    }
+
+    private long oldestRetained() {
+        return bookChangeRepository.findFirstByOrderByIdAsc()
+                .map(change -> change.getId() - 1)
+                .orElse(horizon);
+    }
+
+    private int resolvePageSize(Integer size) {
+        BooksProperties.Pagination pagination = booksProperties.getPagination();
+        if (size == null || size < 1) {
+            return pagination.getDefaultSize();
+        }
+        return Math.min(size, pagination.getMaxSize());
+    }
+
+    // only touched from the feed thread once registered
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private long lastSequence;
+
+        private Subscriber(SseEmitter emitter, long lastSequence) {
+            this.emitter = emitter;
+            this.lastSequence = lastSequence;
+        }
+
+        private void send(List<BookChangeDTO> changes) {
+            try {
+                for (BookChangeDTO change : changes) {
+                    if (change.getSequence() > lastSequence) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.getSequence()))
+                                .name(change.getType().name())
+                                .data(change, MediaType.APPLICATION_JSON));
+                        lastSequence = change.getSequence();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+            }
+        }
+
+        private void heartbeat() {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+            }
+        }
+
+        private void drop(Exception e) {
+            subscribers.remove(this);
+            emitter.completeWithError(e);
+        }
+    }
+}
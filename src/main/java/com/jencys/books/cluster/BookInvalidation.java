@@ -0,0 +1,29 @@
+package com.jencys.books.cluster;
+
+import com.jencys.books.dto.BookChangeDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.model.BookChange;
+
+/**
+ * A committed write to one book: the version it reached, or a null version when it was deleted.
+ */
+public record BookInvalidation(long bookId, Long version) {
+
+    public static BookInvalidation changed(Book book) {
+        return new BookInvalidation(book.getId(), book.getVersion());
+    }
+
+    public static BookInvalidation deleted(long bookId) {
+        return new BookInvalidation(bookId, null);
+    }
+
+    public static BookInvalidation of(BookChangeDTO change) {
+        return change.getType() == BookChange.Type.DELETED
+                ? deleted(change.getBookId())
+                : new BookInvalidation(change.getBookId(), change.getBookVersion());
+    }
+
+    public boolean isDeletion() {
+        return version == null;
+    }
+}
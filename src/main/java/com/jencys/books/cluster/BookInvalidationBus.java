@@ -0,0 +1,13 @@
+package com.jencys.books.cluster;
+
+/**
+ * Carries the writes committed on one node to the others, which hand them to their
+ * {@link BookInvalidationHandler}. Delivery may be late, repeated or out of order; the handler copes.
+ */
+public interface BookInvalidationBus {
+
+    /**
+     * Called after commit by the node that made the write, which has already updated its own caches.
+     */
+    void publish(BookInvalidation invalidation);
+}
@@ -0,0 +1,127 @@
+package com.jencys.books.cluster;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jencys.books.cache.BookCache;
+import com.jencys.books.cache.CatalogueVersion;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings this node's book cache and in-memory indexes up to date with writes committed elsewhere. An
+ * invalidation only names a book and a version, so the indexes are refreshed from the rows as they are now.
+ * Versions this node already holds are skipped, which makes repeated and reordered deliveries harmless: an
+ * older version never evicts a newer cached book or triggers another reload.
+ */
+@Component
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookInvalidationHandler {
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final BookRepository bookRepository;
+    private final BookCache bookCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookIsbnIndex bookIsbnIndex;
+    private final CatalogueVersion catalogueVersion;
+    // newest version applied per recently written book; forgetting one only costs a redundant reload
+    private final Cache<Long, Long> appliedVersions;
+
+    public BookInvalidationHandler(BookRepository bookRepository, BookCache bookCache,
+                                   BookSearchIndex bookSearchIndex, BookIsbnIndex bookIsbnIndex,
+                                   CatalogueVersion catalogueVersion, BooksProperties booksProperties) {
+        this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookIsbnIndex = bookIsbnIndex;
+        this.catalogueVersion = catalogueVersion;
+        this.appliedVersions = Caffeine.newBuilder()
+                .maximumSize(booksProperties.getCache().getMaximumSize())
+                .build();
+    }
+
+    /**
+     * Records a write this node made and applied itself, so it is skipped when the bus delivers it back.
+     */
+    public void markApplied(BookInvalidation invalidation) {
+        advance(invalidation);
+    }
+
+    /**
+     * Applies a batch delivered by the bus, reloading the changed books with one query.
+     *
+     * @return how many of the invalidations were newer than what this node held
+     */
+    // read-write so the reload goes to the primary: a lagging replica may not have the write yet
+    @Transactional
+    public int apply(List<BookInvalidation> invalidations) {
+        Set<Long> changed = new LinkedHashSet<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        int applied = 0;
+        for (BookInvalidation invalidation : invalidations) {
+            if (!advance(invalidation)) {
+                continue;
+            }
+            applied++;
+            if (invalidation.isDeletion()) {
+                changed.remove(invalidation.bookId());
+                deleted.add(invalidation.bookId());
+            } else {
+                bookCache.invalidateOlderThan(invalidation.bookId(), invalidation.version());
+                changed.add(invalidation.bookId());
+            }
+        }
+        if (applied == 0) {
+            return 0;
+        }
+
+        // possibly already past the versions in the batch, which is as fresh as the index can be
+        if (!changed.isEmpty()) {
+            for (Book book : bookRepository.findAllById(changed)) {
+                bookSearchIndex.index(book);
+                bookIsbnIndex.index(book);
+                changed.remove(book.getId());
+            }
+            // deleted since; the deletion is on its way and will be skipped as already applied
+            changed.forEach(id -> advance(BookInvalidation.deleted(id)));
+            deleted.addAll(changed);
+        }
+        for (Long id : deleted) {
+            bookCache.invalidate(id);
+            bookSearchIndex.remove(id);
+            bookIsbnIndex.remove(id);
+        }
+        catalogueVersion.increment();
+        return applied;
+    }
+
+    /**
+     * Drops everything derived from the database, for when invalidations were lost.
+     */
+    public void reset() {
+        appliedVersions.invalidateAll();
+        bookCache.invalidateAll();
+        bookSearchIndex.rebuild();
+        bookIsbnIndex.rebuild();
+        catalogueVersion.increment();
+    }
+
+    private boolean advance(BookInvalidation invalidation) {
+        long version = invalidation.isDeletion() ? DELETED : invalidation.version();
+        boolean[] advanced = new boolean[1];
+        appliedVersions.asMap().compute(invalidation.bookId(), (id, current) -> {
+            advanced[0] = current == null || current < version;
+            return advanced[0] ? version : current;
+        });
+        return advanced[0];
+    }
+}
@@ -0,0 +1,14 @@
+package com.jencys.books.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// a single node has no one to tell
+@Component
+@ConditionalOnProperty(prefix = "books.cluster", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class LocalInvalidationBus implements BookInvalidationBus {
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+    }
+}
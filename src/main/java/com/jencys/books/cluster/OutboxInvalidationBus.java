@@ -0,0 +1,119 @@
+package com.jencys.books.cluster;
+
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookChangePageDTO;
+import com.jencys.books.exception.ChangeFeedExpiredException;
+import com.jencys.books.model.BookChange;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BookInvalidationBus} over the {@link BookChange} outbox ({@code books.cluster.enabled}). Every write
+ * already records its change in the same transaction, so publishing sends nothing: each node follows the
+ * change feed from its own cursor and applies what the others committed. It needs no broker beyond the shared
+ * database, and a node that was stopped catches up for as long as the changes are retained.
+ */
+@Slf4j
+@Component
+// snapshot nodes have neither a change feed nor anything to invalidate
+@ConditionalOnExpression("${books.cluster.enabled:false} and !${books.snapshot.enabled:false}")
+public class OutboxInvalidationBus implements BookInvalidationBus, MeterBinder {
+    private final BookChangeFeed bookChangeFeed;
+    private final BookInvalidationHandler bookInvalidationHandler;
+    private final BooksProperties booksProperties;
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private ScheduledExecutorService executor;
+
+    // only touched from the poller thread; null until the first poll reads the current sequence
+    private Long cursor;
+
+    public OutboxInvalidationBus(BookChangeFeed bookChangeFeed, BookInvalidationHandler bookInvalidationHandler,
+                                 BooksProperties booksProperties) {
+        this.bookChangeFeed = bookChangeFeed;
+        this.bookInvalidationHandler = bookInvalidationHandler;
+        this.booksProperties = booksProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "books-invalidation-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = booksProperties.getCluster().getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::pollSafely, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+        bookInvalidationHandler.markApplied(invalidation);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("books.cluster.invalidations", applied, AtomicLong::get)
+                .description("Invalidations read from the outbox and applied to this node")
+                .tag("outcome", "applied")
+                .register(registry);
+        FunctionCounter.builder("books.cluster.invalidations", skipped, AtomicLong::get)
+                .description("Invalidations read from the outbox and applied to this node")
+                .tag("outcome", "skipped")
+                .register(registry);
+    }
+
+    // the feed only releases changes past the gap horizon, so one committing late is read late but not lost
+    void poll() {
+        int pageSize = booksProperties.getPagination().getMaxSize();
+        try {
+            while (true) {
+                BookChangePageDTO page = bookChangeFeed.changesAfter(cursor, pageSize);
+                cursor = page.getNextCursor();
+                if (page.getContent().isEmpty()) {
+                    return;
+                }
+                List<BookInvalidation> invalidations = page.getContent().stream()
+                        .map(BookInvalidation::of)
+                        .toList();
+                int count = bookInvalidationHandler.apply(invalidations);
+                applied.addAndGet(count);
+                skipped.addAndGet(invalidations.size() - count);
+                if (page.getContent().size() < pageSize) {
+                    return;
+                }
+            }
+        } catch (ChangeFeedExpiredException e) {
+            log.warn("Changes after sequence {} were purged before this node read them, dropping its caches",
+                    cursor);
+            cursor = null;
+            bookInvalidationHandler.reset();
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.error("Could not apply book invalidations, retrying from sequence {}", cursor, e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.jencys.books.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "books")
+public class BooksProperties {
+    private final Pagination pagination = new Pagination();
+    private final Cache cache = new Cache();
+    private final Bulk bulk = new Bulk();
+    private final Datasource datasource = new Datasource();
+    private final Metrics metrics = new Metrics();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final Changes changes = new Changes();
+    private final Snapshot snapshot = new Snapshot();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Suggest suggest = new Suggest();
+    private final Cluster cluster = new Cluster();
+    private final Stats stats = new Stats();
+    private final Startup startup = new Startup();
+    private final Export export = new Export();
+
+    @Data
+    public static class Pagination {
+        private int defaultSize = 50;
+        private int maxSize = 500;
+    }
+
+    @Data
+    public static class Cache {
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Bulk {
+        private int batchSize = 1000;
+        // ids accepted by one get-by-ids request
+        private int maxIds = 1000;
+    }
+
+    @Data
+    public static class Suggest {
+        private int defaultLimit = 10;
+        private int maxLimit = 50;
+        // typos tolerated in a long query; shorter ones allow fewer
+        private int maxEdits = 2;
+    }
+
+    @Data
+    public static class Stats {
+        // recount from the database, folding in writes this node did not make itself
+        private Duration refreshInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Export {
+        private Path directory = Path.of("data", "export");
+        // books per columnar row group, read transaction and checkpoint; bounds the memory an export needs
+        private int rowGroupSize = 10_000;
+    }
+
+    @Data
+    public static class Startup {
+        // defer the API docs beans and warm up the book lookup before the first request arrives
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class Metrics {
+        private Duration slowQueryThreshold = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class WriteBehind {
+        private boolean enabled = false;
+        // accepted writes not yet drained by the committer; further writes are rejected with 429
+        private int queueCapacity = 10_000;
+        private int batchSize = 500;
+        // how long the committer waits for a first write before polling again
+        private Duration flushInterval = Duration.ofMillis(50);
+        private Path journal = Path.of("data", "write-behind.journal");
+        private Duration statusRetention = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Changes {
+        private int batchSize = 500;
+        // comment lines keep idle event streams from being closed by proxies
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        // a sequence gap older than this is taken to be a rolled-back transaction rather than one still running
+        private Duration gapTimeout = Duration.ofSeconds(5);
+        private Duration retention = Duration.ofDays(7);
+    }
+
+    @Data
+    public static class Snapshot {
+        // serve reads from the snapshot file instead of the database; writes are rejected
+        private boolean enabled = false;
+        private Path path = Path.of("data", "books.snapshot");
+        // how often a serving node checks whether the file was replaced
+        private Duration reloadInterval = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Cluster {
+        // follow the writes of other nodes through the change outbox and invalidate local caches
+        private boolean enabled = false;
+        // bounds how stale another node's writes can be here, together with books.changes.gap-timeout
+        private Duration pollInterval = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class RateLimit {
+        private boolean enabled = true;
+        // clients are told apart by remote address unless this names a header set by a trusted proxy, which
+        // must also strip it from incoming requests; otherwise any client could pick its own bucket
+        private String clientHeader;
+        private long maxClients = 100_000;
+        private Duration clientIdleTimeout = Duration.ofMinutes(10);
+        // a request is limited by the first group with a matching path pattern
+        private List<Group> groups = new ArrayList<>();
+
+        @Data
+        public static class Group {
+            private String name;
+            private List<String> paths = new ArrayList<>();
+            // token bucket per client; 0 disables it
+            private double requestsPerSecond;
+            private int burst = 1;
+            // bulkheads for all clients together and for each one; 0 disables them
+            private int maxConcurrent;
+            private int maxConcurrentPerClient;
+        }
+    }
+
+    @Data
+    public static class Datasource {
+        private final Replica replica = new Replica();
+
+        // connection pool settings are bound separately from books.datasource.replica.hikari
+        @Data
+        public static class Replica {
+            private String url;
+            private String username;
+            private String password;
+            private String driverClassName;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.jencys.books.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-only transactions that always read the primary. For reads whose result outlives the request, such
+ * as cache fills and in-memory index rebuilds: from a lagging replica they would bring back rows an update
+ * already replaced, and keep serving them. They still skip the flush and dirty checking of a read-write
+ * transaction.
+ */
+@Component
+public class PrimaryReads {
+    private final TransactionTemplate transactionTemplate;
+
+    public PrimaryReads(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public <T> T read(Supplier<T> query) {
+        return ReadWriteRoutingDataSource.onPrimary(() -> transactionTemplate.execute(status -> query.get()));
+    }
+
+    public void run(Runnable query) {
+        read(() -> {
+            query.run();
+            return null;
+        });
+    }
+}
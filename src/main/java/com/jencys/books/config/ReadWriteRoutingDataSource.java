@@ -0,0 +1,39 @@
+package com.jencys.books.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to the replica pool and everything else to the primary,
+ * unless the read is pinned to the primary with {@link PrimaryReads}.
+ * Must sit behind a {@code LazyConnectionDataSourceProxy}: the transaction manager asks for a connection
+ * before the read-only flag of the new transaction is visible.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    // connections first used while work runs go to the primary, read-only or not
+    static <T> T onPrimary(Supplier<T> work) {
+        if (PINNED.get() != null) {
+            return work.get();
+        }
+        PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PINNED.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return PINNED.get() == null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? Route.REPLICA : Route.PRIMARY;
+    }
+}
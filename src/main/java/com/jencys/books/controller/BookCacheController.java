@@ -0,0 +1,26 @@
+package com.jencys.books.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jencys.books.cache.BookCache;
+import com.jencys.books.dto.CacheStatsDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/books/cache")
+public class BookCacheController {
+    private final BookCache bookCache;
+
+    public BookCacheController(BookCache bookCache) {
+        this.bookCache = bookCache;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        CacheStats stats = bookCache.stats();
+        return ResponseEntity.ok(new CacheStatsDTO(stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate(), bookCache.size()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.jencys.books.controller;
+
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.dto.BookChangeDTO;
+import com.jencys.books.dto.BookChangePageDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Catalogue changes in sequence order, so consumers follow the catalogue instead of polling GET /api/books.
+ */
+@RestController
+@RequestMapping("/api/books/changes")
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookChangeController {
+    private final BookChangeFeed bookChangeFeed;
+
+    public BookChangeController(BookChangeFeed bookChangeFeed) {
+        this.bookChangeFeed = bookChangeFeed;
+    }
+
+    // a reconnecting EventSource sends Last-Event-ID, which takes precedence over the after of the original URL
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return bookChangeFeed.subscribe(lastEventId != null ? lastEventId : after);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BookChangeDTO>> getChanges(@RequestParam(required = false) Long after,
+                                                          @RequestParam(required = false) Integer size) {
+        BookChangePageDTO page = bookChangeFeed.changesAfter(after, size);
+        return ResponseEntity.ok()
+                .header(BookController.NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()))
+                .body(page.getContent());
+    }
+}
@@ -1,63 +1,284 @@
 package com.jencys.books.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.jencys.books.dto.BookBatchDTO;
 import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.dto.WriteOperationDTO;
+import com.jencys.books.exception.BookVersionMismatchException;
 import com.jencys.books.service.BookService;
+import com.jencys.books.writebehind.BookWriteBehind;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES = new TypeReference<>() {
+    };
+
     private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final BookWriteBehind bookWriteBehind;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ObjectMapper objectMapper, BookWriteBehind bookWriteBehind) {
         this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.bookWriteBehind = bookWriteBehind;
     }
 
+    // in write-behind mode every mutation answers 202 with an operation to poll instead of the result
     @PostMapping
-    public ResponseEntity<BookDTO> createBook(@Valid @RequestBody BookDTO bookDTO) {
+    public ResponseEntity<?> createBook(@Valid @RequestBody BookDTO bookDTO,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (bookWriteBehind.isEnabled()) {
+            return accepted(bookWriteBehind.submit(WriteOperationDTO.Type.CREATE, null, bookDTO));
+        }
         BookDTO createdBook = bookService.createBook(bookDTO);
-        return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(bookETag(createdBook, accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(createdBook);
     }
 
+    // If-None-Match is evaluated against the ETag by Spring, so a 304 is sent without writing the body
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBook(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getBook(@PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         BookDTO book = bookService.getBook(id);
-        return ResponseEntity.ok(book);
+        return ResponseEntity.ok()
+                .eTag(bookETag(book, accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(book);
     }
 
     @GetMapping
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
-        List<BookDTO> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<?>> getAllBooks(@RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer size,
+                                                     @RequestParam(required = false) String fields,
+                                                     WebRequest request) {
+        if (checkNotModified(request)) {
+            return null;
+        }
+        BookPageDTO page = bookService.getAllBooks(after, size, fields);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+        return response.body(projected(page.getContent(), fields));
+    }
+
+    // any spelling of the ISBN, hyphenated or ISBN-10, finds the book
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<BookDTO> getBookByIsbn(@PathVariable String isbn,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        BookDTO book = bookService.getBookByIsbn(isbn);
+        return ResponseEntity.ok()
+                .eTag(bookETag(book, accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(book);
+    }
+
+    // GET /api/books?ids=3,1,2 and POST /api/books/batch-get (for id lists too long for a URL) share one lookup
+    @GetMapping(params = "ids")
+    public ResponseEntity<BookBatchDTO> getBooksByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(bookService.getBooks(ids));
+    }
+
+    @PostMapping("/batch-get")
+    public ResponseEntity<BookBatchDTO> batchGetBooks(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(bookService.getBooks(ids));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks(@RequestParam(required = false) String fields) {
+        boolean projected = isProjection(fields);
+        ObjectWriter writer = projected ? objectMapper.writerFor(Map.class) : objectMapper.writerFor(BookDTO.class);
+        StreamingResponseBody body = outputStream -> bookService.streamAllBooks(fields, book -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(projected ? projected(book) : book));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<BookDTO> updateBook(@PathVariable Long id,
-                                              @Valid @RequestBody BookDTO bookDTO) {
+    public ResponseEntity<?> updateBook(@PathVariable Long id,
+                                              @Valid @RequestBody BookDTO bookDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            bookDTO.setVersion(parseVersion(ifMatch));
+        }
+        if (bookWriteBehind.isEnabled()) {
+            return accepted(bookWriteBehind.submit(WriteOperationDTO.Type.UPDATE, id, bookDTO));
+        }
         BookDTO updatedBook = bookService.updateBook(id, bookDTO);
-        return ResponseEntity.ok(updatedBook);
+        return ResponseEntity.ok()
+                .eTag(bookETag(updatedBook, accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(updatedBook);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
+    public ResponseEntity<?> deleteBook(@PathVariable Long id) {
+        if (bookWriteBehind.isEnabled()) {
+            return accepted(bookWriteBehind.submit(WriteOperationDTO.Type.DELETE, id, null));
+        }
         bookService.deleteBook(id);
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<?>> searchBooks(@ModelAttribute BookSearchCriteria criteria, WebRequest request) {
+        if (checkNotModified(request)) {
+            return null;
+        }
+        BookSearchPageDTO page = bookService.searchBooks(criteria);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(projected(page.getContent(), criteria.getFields()));
+    }
+
+    // unbounded results are written element by element as they are read, in JSON, CBOR or Smile per Accept
     @GetMapping("/search/author")
-    public ResponseEntity<List<BookDTO>> searchBooksByAuthor(@RequestParam String author) {
-        List<BookDTO> books = bookService.searchBooksByAuthor(author);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<StreamingResponseBody> searchBooksByAuthor(@RequestParam String author,
+                                                                     @RequestParam(required = false) String fields,
+                                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                     WebRequest request) {
+        if (checkNotModified(request)) {
+            return null;
+        }
+        return streamList(accept, fields, consumer -> bookService.searchBooksByAuthor(author, fields, consumer));
     }
 
     @GetMapping("/search/title")
-    public ResponseEntity<List<BookDTO>> searchBooksByTitle(@RequestParam String title) {
-        List<BookDTO> books = bookService.searchBooksByTitle(title);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<StreamingResponseBody> searchBooksByTitle(@RequestParam String title,
+                                                                    @RequestParam(required = false) String fields,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                    WebRequest request) {
+        if (checkNotModified(request)) {
+            return null;
+        }
+        return streamList(accept, fields, consumer -> bookService.searchBooksByTitle(title, fields, consumer));
+    }
+
+    // type-ahead: titles and authors completing q, called on every keystroke
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestionDTO>> suggest(@RequestParam String q,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           WebRequest request) {
+        if (checkNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(bookService.suggest(q, limit));
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamList(String accept, String fields,
+                                                             Consumer<Consumer<BookDTO>> query) {
+        BookListFormat format = BookListFormat.from(accept);
+        boolean projected = isProjection(fields);
+        ObjectWriter writer = format.writer(projected ? objectMapper.writerFor(Map.class)
+                : objectMapper.writerFor(BookDTO.class));
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter array = writer.writeValuesAsArray(outputStream)) {
+                query.accept(book -> {
+                    try {
+                        array.write(projected ? projected(book) : book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    // answers If-None-Match against the catalogue version, see eTag
+    private boolean checkNotModified(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.checkNotModified(eTag(bookService.getCatalogueVersion(), accept));
+    }
+
+    private static boolean isProjection(String fields) {
+        return fields != null && !fields.isBlank();
+    }
+
+    // a fields= selection leaves the other attributes null, and they are left out rather than sent as null
+    private List<?> projected(List<BookDTO> books, String fields) {
+        return isProjection(fields) ? books.stream().map(this::projected).toList() : books;
+    }
+
+    private Map<String, Object> projected(BookDTO book) {
+        Map<String, Object> attributes = objectMapper.convertValue(book, ATTRIBUTES);
+        attributes.values().removeIf(Objects::isNull);
+        return attributes;
+    }
+
+    private static ResponseEntity<WriteOperationDTO> accepted(WriteOperationDTO operation) {
+        return ResponseEntity.accepted()
+                .location(URI.create(BookOperationController.PATH + "/" + operation.getOperationId()))
+                .body(operation);
+    }
+
+    private static String bookETag(BookDTO book, String accept) {
+        return eTag(String.valueOf(book.getVersion()), accept);
+    }
+
+    /**
+     * The JSON, CBOR and Smile bodies of a book or list differ, so the tag names the format the Accept header
+     * selects, and it is weak because gzip changes the bytes again.
+     */
+    private static String eTag(String version, String accept) {
+        return "W/\"" + version + "-" + BookListFormat.from(accept).name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    // the version of any of the book's tags, or a bare version
+    private static Long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        int format = tag.indexOf('-');
+        try {
+            return Long.valueOf(format < 0 ? tag : tag.substring(0, format));
+        } catch (NumberFormatException e) {
+            throw new BookVersionMismatchException("If-Match does not name a version of this book: " + ifMatch);
+        }
     }
 }
\ No newline at end of file
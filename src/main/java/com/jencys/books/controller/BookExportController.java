@@ -0,0 +1,33 @@
+package com.jencys.books.controller;
+
+import com.jencys.books.dto.BookExportDTO;
+import com.jencys.books.export.BookExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/books/export")
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookExportController {
+    private final BookExporter bookExporter;
+
+    public BookExportController(BookExporter bookExporter) {
+        this.bookExporter = bookExporter;
+    }
+
+    // resumes an unfinished export unless restart is set; poll GET for progress
+    @PostMapping
+    public ResponseEntity<BookExportDTO> startExport(@RequestParam(defaultValue = "false") boolean restart) {
+        return ResponseEntity.accepted().body(bookExporter.submit(restart));
+    }
+
+    @GetMapping
+    public ResponseEntity<BookExportDTO> getExportStatus() {
+        return ResponseEntity.ok(bookExporter.status());
+    }
+}
@@ -0,0 +1,66 @@
+package com.jencys.books.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jencys.books.dto.BookImportResultDTO;
+import com.jencys.books.io.BookImportRow;
+import com.jencys.books.io.CsvBookRowIterator;
+import com.jencys.books.io.JsonBookRowIterator;
+import com.jencys.books.service.BookImportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookImportController {
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
+
+    public BookImportController(BookImportService bookImportService, ObjectMapper objectMapper) {
+        this.bookImportService = bookImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Imports a JSON array, NDJSON or CSV feed row by row and streams back one NDJSON result per row.
+     */
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                            InputStream body,
+                            HttpServletResponse response) throws IOException {
+        Iterator<BookImportRow> rows = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? new CsvBookRowIterator(body)
+                : new JsonBookRowIterator(objectMapper, body);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream outputStream = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(BookImportResultDTO.class);
+        bookImportService.importBooks(rows, result -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(result));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,70 @@
+package com.jencys.books.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Representations of the book lists {@link BookController} streams, picked from the Accept header. CBOR and
+ * Smile carry the same fields as JSON, without repeating the field names as text, and are cheaper to parse.
+ */
+enum BookListFormat {
+    JSON(MediaType.APPLICATION_JSON, null),
+    CBOR(MediaType.APPLICATION_CBOR, new CBORFactory()),
+    SMILE(new MediaType("application", "x-jackson-smile"), new SmileFactory());
+
+    private final MediaType mediaType;
+    private final JsonFactory factory;
+
+    BookListFormat(MediaType mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    // the servlet owns the response stream, so closing the array must not close it
+    ObjectWriter writer(ObjectWriter json) {
+        ObjectWriter writer = factory == null ? json : json.with(factory);
+        return writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * The format of the most preferred acceptable type, JSON when the header is missing, malformed or names
+     * none of them.
+     */
+    static BookListFormat from(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        // stable, so types of equal quality keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() <= 0) {
+                break;
+            }
+            for (BookListFormat format : values()) {
+                if (type.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,26 @@
+package com.jencys.books.controller;
+
+import com.jencys.books.dto.WriteOperationDTO;
+import com.jencys.books.writebehind.BookWriteBehind;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(BookOperationController.PATH)
+public class BookOperationController {
+    public static final String PATH = "/api/books/operations";
+
+    private final BookWriteBehind bookWriteBehind;
+
+    public BookOperationController(BookWriteBehind bookWriteBehind) {
+        this.bookWriteBehind = bookWriteBehind;
+    }
+
+    @GetMapping("/{operationId}")
+    public ResponseEntity<WriteOperationDTO> getOperation(@PathVariable String operationId) {
+        return ResponseEntity.ok(bookWriteBehind.status(operationId));
+    }
+}
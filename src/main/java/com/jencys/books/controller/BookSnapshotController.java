@@ -0,0 +1,25 @@
+package com.jencys.books.controller;
+
+import com.jencys.books.dto.BookSnapshotDTO;
+import com.jencys.books.snapshot.BookSnapshotExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/books/snapshot")
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookSnapshotController {
+    private final BookSnapshotExporter bookSnapshotExporter;
+
+    public BookSnapshotController(BookSnapshotExporter bookSnapshotExporter) {
+        this.bookSnapshotExporter = bookSnapshotExporter;
+    }
+
+    @PostMapping
+    public ResponseEntity<BookSnapshotDTO> exportSnapshot() {
+        return ResponseEntity.ok(bookSnapshotExporter.export());
+    }
+}
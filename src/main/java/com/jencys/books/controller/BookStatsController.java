@@ -0,0 +1,49 @@
+package com.jencys.books.controller;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.AuthorCountDTO;
+import com.jencys.books.dto.CatalogueStatsDTO;
+import com.jencys.books.dto.YearCountDTO;
+import com.jencys.books.stats.BookStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// catalogue reports from in-memory counters, instead of paging through every book
+@RestController
+@RequestMapping("/api/books/stats")
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookStatsController {
+    private final BookStats bookStats;
+    private final BooksProperties booksProperties;
+
+    public BookStatsController(BookStats bookStats, BooksProperties booksProperties) {
+        this.bookStats = bookStats;
+        this.booksProperties = booksProperties;
+    }
+
+    @GetMapping
+    public ResponseEntity<CatalogueStatsDTO> getStats() {
+        return ResponseEntity.ok(bookStats.summary());
+    }
+
+    @GetMapping("/authors")
+    public ResponseEntity<List<AuthorCountDTO>> getAuthors(@RequestParam(required = false) Integer limit) {
+        BooksProperties.Pagination pagination = booksProperties.getPagination();
+        int resolved = limit == null || limit < 1
+                ? pagination.getDefaultSize()
+                : Math.min(limit, pagination.getMaxSize());
+        return ResponseEntity.ok(bookStats.topAuthors(resolved));
+    }
+
+    // bucket=10 groups the years into decades
+    @GetMapping("/years")
+    public ResponseEntity<List<YearCountDTO>> getYears(@RequestParam(required = false) Integer bucket) {
+        return ResponseEntity.ok(bookStats.yearHistogram(bucket == null || bucket < 1 ? 1 : bucket));
+    }
+}
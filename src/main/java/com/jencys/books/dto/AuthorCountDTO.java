@@ -0,0 +1,13 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorCountDTO {
+    private String author;
+    private long books;
+}
@@ -0,0 +1,16 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchDTO {
+    // in the order the ids were requested
+    private List<BookDTO> books;
+    private List<Long> missingIds;
+}
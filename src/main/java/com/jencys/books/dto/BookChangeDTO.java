@@ -0,0 +1,21 @@
+package com.jencys.books.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.jencys.books.model.BookChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookChangeDTO {
+    private long sequence;
+    private BookChange.Type type;
+    private Long bookId;
+    private Long bookVersion;
+    private Instant changedAt;
+}
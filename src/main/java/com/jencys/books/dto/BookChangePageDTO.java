@@ -0,0 +1,17 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangePageDTO {
+    private List<BookChangeDTO> content;
+
+    // sequence to resume from: that of the last change in this page, or the requested one when it is empty
+    private long nextCursor;
+}
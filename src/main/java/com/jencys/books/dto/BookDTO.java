@@ -1,9 +1,11 @@
 package com.jencys.books.dto;
 
+import com.jencys.books.validation.ValidIsbn;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
+// fields left out by a fields= selection are null; BookController omits them from projected responses
 @Data
 public class BookDTO {
     private Long id;
@@ -14,11 +16,16 @@ public class BookDTO {
     @NotBlank(message = "Author is required")
     private String author;
 
+    // stored as the 13 digits of the ISBN-13, whichever form was sent
     @NotBlank(message = "ISBN is required")
+    @ValidIsbn
     private String isbn;
 
     @NotNull(message = "Publication year is required")
     private Integer publicationYear;
 
     private String description;
+
+    // optimistic-locking version; echoed as the ETag and checked by updates when present
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.jencys.books.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookExportDTO {
+    public enum State {
+        // INTERRUPTED and FAILED exports resume from their checkpoint when started again
+        IDLE, RUNNING, INTERRUPTED, FAILED, COMPLETED
+    }
+
+    private State state;
+    private long books;
+    // the last book written, where a resumed export continues
+    private Long lastId;
+    private String csvPath;
+    private String columnarPath;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.jencys.books.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookImportResultDTO {
+    public enum Status {
+        CREATED, DUPLICATE, INVALID
+    }
+
+    private long row;
+    private Status status;
+    private Long id;
+    private String isbn;
+    private String message;
+}
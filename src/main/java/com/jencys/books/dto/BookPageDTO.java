@@ -0,0 +1,17 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPageDTO {
+    private List<BookDTO> content;
+
+    // id of the last book in this page; null when there are no more pages
+    private Long nextCursor;
+}
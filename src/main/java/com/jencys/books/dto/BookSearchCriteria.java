@@ -0,0 +1,27 @@
+package com.jencys.books.dto;
+
+import lombok.Data;
+
+@Data
+public class BookSearchCriteria {
+    // contains, case-insensitive
+    private String author;
+    private String title;
+
+    // inclusive bounds
+    private Integer yearFrom;
+    private Integer yearTo;
+
+    private String isbnPrefix;
+
+    // id, title, author or publicationYear; ties are always broken by id
+    private String sort = "id";
+    private String order = "asc";
+
+    // comma-separated attributes to return; id and the sort attribute are always included
+    private String fields;
+
+    // opaque cursor returned in X-Next-Cursor by the previous page
+    private String after;
+    private Integer size;
+}
@@ -0,0 +1,17 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSnapshotDTO {
+    private String path;
+    private int books;
+    private long bytes;
+    private Instant createdAt;
+}
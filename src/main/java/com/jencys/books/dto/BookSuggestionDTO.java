@@ -0,0 +1,21 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestionDTO {
+    public enum Field {
+        TITLE, AUTHOR
+    }
+
+    private String text;
+    private Field field;
+    // books holding this exact value
+    private int books;
+    // typos corrected to reach the suggestion, 0 for a plain prefix
+    private int edits;
+}
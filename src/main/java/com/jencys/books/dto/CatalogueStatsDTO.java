@@ -0,0 +1,16 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogueStatsDTO {
+    private long books;
+    private int authors;
+    // null while the catalogue is empty
+    private Integer earliestYear;
+    private Integer latestYear;
+}
@@ -0,0 +1,26 @@
+package com.jencys.books.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WriteOperationDTO {
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    public enum Status {
+        PENDING, APPLIED, FAILED
+    }
+
+    private String operationId;
+    private Type type;
+    private Status status;
+    private Long bookId;
+    private String message;
+}
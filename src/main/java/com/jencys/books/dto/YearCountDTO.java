@@ -0,0 +1,15 @@
+package com.jencys.books.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class YearCountDTO {
+    // first and last publication year of the bucket, both inclusive
+    private int from;
+    private int to;
+    private long books;
+}
@@ -0,0 +1,7 @@
+package com.jencys.books.exception;
+
+public class InvalidBatchException extends RuntimeException {
+    public InvalidBatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jencys.books.exception;
+
+public class InvalidIsbnException extends RuntimeException {
+    public InvalidIsbnException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jencys.books.exception;
+
+public class InvalidSearchException extends RuntimeException {
+    public InvalidSearchException(String message) {
+        super(message);
+    }
+}
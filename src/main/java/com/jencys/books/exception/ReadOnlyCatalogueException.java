@@ -0,0 +1,7 @@
+package com.jencys.books.exception;
+
+public class ReadOnlyCatalogueException extends RuntimeException {
+    public ReadOnlyCatalogueException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.jencys.books.exception;
+
+public class WriteOperationNotFoundException extends RuntimeException {
+    public WriteOperationNotFoundException(String message) {
+        super(message);
+    }
+}
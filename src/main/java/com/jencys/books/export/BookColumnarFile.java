@@ -0,0 +1,200 @@
+package com.jencys.books.export;
+
+import com.jencys.books.repository.BookView;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar export of the catalogue, laid out like Parquet: row groups of a bounded number of books, each
+ * holding one zlib-compressed block per column, and a footer indexing the row groups. All numbers are
+ * big-endian.
+ * <pre>
+ * file      := MAGIC FORMAT_VERSION rowGroup* footer
+ * rowGroup  := ROW_GROUP rows:int firstId:long lastId:long column[COLUMNS]
+ * column    := length:int compressedLength:int zlib(values)
+ * footer    := rowGroups:int offset:long[rowGroups] books:long footerLength:int MAGIC
+ * </pre>
+ * Columns come in the order id, title, author, isbn, publication year, description, version. Ids are
+ * ascending and stored as varint deltas. The other values are varints shifted by one so that 0 is null:
+ * years zigzag-encoded, versions as they are, and strings as their UTF-8 length followed by the bytes.
+ */
+public final class BookColumnarFile {
+    static final int MAGIC = 0x424B4331; // "BKC1"
+    static final int FORMAT_VERSION = 1;
+    static final int ROW_GROUP = 0x5247_0000; // "RG"
+    static final int COLUMNS = 7;
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    static final int ROW_GROUP_HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    static final int ID = 0;
+    static final int TITLE = 1;
+    static final int AUTHOR = 2;
+    static final int ISBN = 3;
+    static final int PUBLICATION_YEAR = 4;
+    static final int DESCRIPTION = 5;
+    static final int VERSION = 6;
+
+    private BookColumnarFile() {
+    }
+
+    /**
+     * Reads every book of a complete file, in id order, one row group in memory at a time.
+     *
+     * @return the number of books read
+     */
+    public static long read(Path path, Consumer<BookView> books) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer trailer = readFully(channel, channel.size() - 2 * Integer.BYTES, 2 * Integer.BYTES);
+            int footerLength = trailer.getInt();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a complete columnar export");
+            }
+            ByteBuffer footer = readFully(channel, channel.size() - 2 * Integer.BYTES - footerLength, footerLength);
+            long[] offsets = new long[footer.getInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = footer.getLong();
+            }
+            long count = 0;
+            Inflater inflater = new Inflater();
+            try {
+                for (long offset : offsets) {
+                    count += readRowGroup(channel, offset, inflater, books);
+                }
+            } finally {
+                inflater.end();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * The offsets of the row groups in the first {@code size} bytes of a file being written, found by walking
+     * their headers. Used to write the footer of an export resumed from a checkpoint.
+     */
+    static List<Long> rowGroupOffsets(FileChannel channel, long size) throws IOException {
+        ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a columnar export of format version " + FORMAT_VERSION);
+        }
+        List<Long> offsets = new ArrayList<>();
+        long position = HEADER_SIZE;
+        while (position < size) {
+            offsets.add(position);
+            ByteBuffer rowGroup = readFully(channel, position, ROW_GROUP_HEADER_SIZE);
+            if (rowGroup.getInt() != ROW_GROUP) {
+                throw new IOException("No row group at offset " + position);
+            }
+            position += ROW_GROUP_HEADER_SIZE;
+            for (int column = 0; column < COLUMNS; column++) {
+                ByteBuffer lengths = readFully(channel, position, 2 * Integer.BYTES);
+                lengths.getInt();
+                position += 2 * Integer.BYTES + lengths.getInt();
+            }
+        }
+        return offsets;
+    }
+
+    private static int readRowGroup(FileChannel channel, long offset, Inflater inflater, Consumer<BookView> books)
+            throws IOException {
+        ByteBuffer header = readFully(channel, offset, ROW_GROUP_HEADER_SIZE);
+        if (header.getInt() != ROW_GROUP) {
+            throw new IOException("No row group at offset " + offset);
+        }
+        int rows = header.getInt();
+        long position = offset + ROW_GROUP_HEADER_SIZE;
+        ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            ByteBuffer lengths = readFully(channel, position, 2 * Integer.BYTES);
+            int length = lengths.getInt();
+            int compressedLength = lengths.getInt();
+            ByteBuffer compressed = readFully(channel, position + 2 * Integer.BYTES, compressedLength);
+            columns[column] = inflate(inflater, compressed, length);
+            position += 2 * Integer.BYTES + compressedLength;
+        }
+
+        long id = 0;
+        for (int row = 0; row < rows; row++) {
+            id += readVarLong(columns[ID]);
+            long year = readVarLong(columns[PUBLICATION_YEAR]);
+            long version = readVarLong(columns[VERSION]);
+            books.accept(new BookView(id,
+                    readString(columns[TITLE]),
+                    readString(columns[AUTHOR]),
+                    readString(columns[ISBN]),
+                    year == 0 ? null : (int) zigzagDecode(year - 1),
+                    readString(columns[DESCRIPTION]),
+                    version == 0 ? null : version - 1));
+        }
+        return rows;
+    }
+
+    private static ByteBuffer inflate(Inflater inflater, ByteBuffer compressed, int length) throws IOException {
+        ByteBuffer values = ByteBuffer.allocate(length);
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            while (values.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(values) == 0 && inflater.needsInput()) {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column block", e);
+        }
+        if (values.hasRemaining()) {
+            throw new IOException("Column block is shorter than its declared length " + length);
+        }
+        return values.flip();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Columnar export ends before offset " + (position + length));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String readString(ByteBuffer column) {
+        long length = readVarLong(column);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        column.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,193 @@
+package com.jencys.books.export;
+
+import com.jencys.books.repository.BookView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static com.jencys.books.export.BookColumnarFile.AUTHOR;
+import static com.jencys.books.export.BookColumnarFile.COLUMNS;
+import static com.jencys.books.export.BookColumnarFile.DESCRIPTION;
+import static com.jencys.books.export.BookColumnarFile.ID;
+import static com.jencys.books.export.BookColumnarFile.ISBN;
+import static com.jencys.books.export.BookColumnarFile.PUBLICATION_YEAR;
+import static com.jencys.books.export.BookColumnarFile.TITLE;
+import static com.jencys.books.export.BookColumnarFile.VERSION;
+
+/**
+ * Appends books to a {@link BookColumnarFile} through its channel. The current row group is encoded into
+ * one buffer per column; the buffers are reused from one row group to the next, so memory is bounded by
+ * the size of a row group, not by the export.
+ */
+final class BookColumnarWriter implements AutoCloseable {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final FileChannel channel;
+    private final Column[] columns = new Column[COLUMNS];
+    private final Deflater deflater = new Deflater();
+    private final List<Long> rowGroupOffsets;
+    private byte[] compressed = new byte[INITIAL_CAPACITY];
+    private int rows;
+    private long firstId;
+    private long lastId;
+    private long books;
+
+    private BookColumnarWriter(FileChannel channel, List<Long> rowGroupOffsets) {
+        this.channel = channel;
+        this.rowGroupOffsets = rowGroupOffsets;
+        Arrays.setAll(columns, i -> new Column());
+    }
+
+    // writes the file header at the channel's position, which must be the start of an empty file
+    static BookColumnarWriter create(FileChannel channel) throws IOException {
+        writeFully(channel, ByteBuffer.allocate(BookColumnarFile.HEADER_SIZE)
+                .putInt(BookColumnarFile.MAGIC)
+                .putInt(BookColumnarFile.FORMAT_VERSION)
+                .flip());
+        return new BookColumnarWriter(channel, new ArrayList<>());
+    }
+
+    /**
+     * Continues a file whose first {@code size} bytes are complete row groups, after the book {@code lastId}.
+     * The channel must be positioned at {@code size}.
+     */
+    static BookColumnarWriter resume(FileChannel channel, long size, long lastId, long books) throws IOException {
+        BookColumnarWriter writer = new BookColumnarWriter(channel,
+                new ArrayList<>(BookColumnarFile.rowGroupOffsets(channel, size)));
+        writer.lastId = lastId;
+        writer.books = books;
+        return writer;
+    }
+
+    void add(BookView book) {
+        if (book.id() <= lastId) {
+            throw new IllegalArgumentException("Books must be written in ascending id order, got "
+                    + book.id() + " after " + lastId);
+        }
+        if (rows == 0) {
+            firstId = book.id();
+            // deltas restart in every row group, so each can be decoded on its own
+            columns[ID].writeVarLong(book.id());
+        } else {
+            columns[ID].writeVarLong(book.id() - lastId);
+        }
+        columns[TITLE].writeString(book.title());
+        columns[AUTHOR].writeString(book.author());
+        columns[ISBN].writeString(book.isbn());
+        columns[PUBLICATION_YEAR].writeVarLong(book.publicationYear() == null ? 0
+                : BookColumnarFile.zigzagEncode(book.publicationYear()) + 1);
+        columns[DESCRIPTION].writeString(book.description());
+        columns[VERSION].writeVarLong(book.version() == null ? 0 : book.version() + 1);
+        lastId = book.id();
+        rows++;
+        books++;
+    }
+
+    long lastId() {
+        return lastId;
+    }
+
+    long books() {
+        return books;
+    }
+
+    // writes the books added since the last row group as a new one
+    void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        rowGroupOffsets.add(channel.position());
+        writeFully(channel, ByteBuffer.allocate(BookColumnarFile.ROW_GROUP_HEADER_SIZE)
+                .putInt(BookColumnarFile.ROW_GROUP)
+                .putInt(rows)
+                .putLong(firstId)
+                .putLong(lastId)
+                .flip());
+        ByteBuffer lengths = ByteBuffer.allocate(2 * Integer.BYTES);
+        for (Column column : columns) {
+            int length = compress(column);
+            writeFully(channel, lengths.clear().putInt(column.size).putInt(length).flip());
+            writeFully(channel, ByteBuffer.wrap(compressed, 0, length));
+            column.size = 0;
+        }
+        rows = 0;
+    }
+
+    // the last row group and the footer; the file is complete afterwards
+    void finish() throws IOException {
+        flushRowGroup();
+        int footerLength = Integer.BYTES + rowGroupOffsets.size() * Long.BYTES + Long.BYTES;
+        ByteBuffer footer = ByteBuffer.allocate(footerLength + 2 * Integer.BYTES)
+                .putInt(rowGroupOffsets.size());
+        for (long offset : rowGroupOffsets) {
+            footer.putLong(offset);
+        }
+        writeFully(channel, footer.putLong(books)
+                .putInt(footerLength)
+                .putInt(BookColumnarFile.MAGIC)
+                .flip());
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private int compress(Column column) {
+        deflater.reset();
+        deflater.setInput(column.bytes, 0, column.size);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class Column {
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
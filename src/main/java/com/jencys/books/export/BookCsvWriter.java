@@ -0,0 +1,94 @@
+package com.jencys.books.export;
+
+import com.jencys.books.repository.BookView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Appends books to an RFC 4180 CSV file (UTF-8, CRLF, header row) through its channel, via one fixed-size
+ * buffer. The header names the columns the import reads, so an export can be imported again.
+ */
+final class BookCsvWriter {
+    static final String HEADER = "id,title,author,isbn,publicationYear,description,version\r\n";
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final StringBuilder row = new StringBuilder(256);
+
+    BookCsvWriter(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    void writeHeader() throws IOException {
+        put(HEADER.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void write(BookView book) throws IOException {
+        row.setLength(0);
+        row.append(book.id()).append(',');
+        appendText(book.title()).append(',');
+        appendText(book.author()).append(',');
+        appendText(book.isbn()).append(',');
+        if (book.publicationYear() != null) {
+            row.append(book.publicationYear());
+        }
+        row.append(',');
+        appendText(book.description()).append(',');
+        if (book.version() != null) {
+            row.append(book.version());
+        }
+        row.append("\r\n");
+        put(row.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // writes what is buffered; the channel's position is then the end of the last row
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flush();
+        }
+        if (bytes.length > buffer.capacity()) {
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    // null and empty are both written as an empty field, as the import reads either as missing
+    private StringBuilder appendText(String value) {
+        if (value == null || value.isEmpty()) {
+            return row;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            return row.append(value);
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        return row.append('"');
+    }
+}
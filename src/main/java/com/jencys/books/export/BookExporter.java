@@ -0,0 +1,278 @@
+package com.jencys.books.export;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookExportDTO;
+import com.jencys.books.exception.ExportInProgressException;
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookSpecifications;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.repository.BookViewRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Dumps the whole catalogue to {@code books.export.directory} as CSV and as a {@link BookColumnarFile}, in
+ * one background job per node. Books are read in id order, one row group per read-only transaction, as
+ * scalar rows from a forward-only cursor; nothing enters the persistence context and the writers reuse
+ * their buffers, so memory stays flat however large the table is.
+ * <p>
+ * After every row group both files are forced to disk and a checkpoint records the last id and the file
+ * sizes. An export that is interrupted or fails resumes from there when started again. The files are
+ * written as {@code .part} and only renamed once complete.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookExporter {
+    static final String CSV = "books.csv";
+    static final String COLUMNAR = "books.columnar";
+    static final String PART = ".part";
+    static final String CHECKPOINT = "books.export.checkpoint";
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+    private static final Set<BookField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
+    private final BookViewRepository bookViewRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BooksProperties booksProperties;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // null until this node runs an export
+    private final AtomicReference<BookExportDTO> status = new AtomicReference<>();
+    private ExecutorService executor;
+
+    public BookExporter(BookViewRepository bookViewRepository, PlatformTransactionManager transactionManager,
+                        BooksProperties booksProperties) {
+        this.bookViewRepository = bookViewRepository;
+        // read-only, so the reads go to the replica when there is one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.booksProperties = booksProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "books-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // interrupts a running export between row groups; it resumes from its checkpoint when started again
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts an export in the background, resuming the previous one if it did not complete, unless
+     * {@code restart} is set.
+     */
+    public BookExportDTO submit(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ExportInProgressException("An export is already running");
+        }
+        BookExportDTO started = progress(BookExportDTO.State.RUNNING, null);
+        status.set(started);
+        executor.execute(() -> {
+            try {
+                export(restart);
+            } finally {
+                running.set(false);
+            }
+        });
+        return started;
+    }
+
+    public BookExportDTO status() {
+        BookExportDTO current = status.get();
+        if (current != null) {
+            return current;
+        }
+        // an export a previous run of this node did not finish
+        try {
+            ExportCheckpoint checkpoint = ExportCheckpoint.read(directory().resolve(CHECKPOINT));
+            return checkpoint == null
+                    ? progress(BookExportDTO.State.IDLE, null)
+                    : progress(BookExportDTO.State.INTERRUPTED, checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the export checkpoint", e);
+        }
+    }
+
+    // runs on the calling thread
+    BookExportDTO export(boolean restart) {
+        Path directory = directory();
+        Path checkpointPath = directory.resolve(CHECKPOINT);
+        Path csvPart = directory.resolve(CSV + PART);
+        Path columnarPart = directory.resolve(COLUMNAR + PART);
+        ExportCheckpoint checkpoint = null;
+        try {
+            Files.createDirectories(directory);
+            if (!restart && Files.exists(csvPart) && Files.exists(columnarPart)) {
+                checkpoint = ExportCheckpoint.read(checkpointPath);
+            }
+            try (FileChannel csv = FileChannel.open(csvPart, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 // READ as well: resuming reads the row group offsets back from the columnar file
+                 FileChannel columnar = FileChannel.open(columnarPart, StandardOpenOption.CREATE,
+                         StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                checkpoint = write(csv, columnar, checkpoint, checkpointPath);
+            }
+            Files.move(csvPart, directory.resolve(CSV), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.move(columnarPart, directory.resolve(COLUMNAR), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(checkpointPath);
+            log.info("Exported {} books to {}", checkpoint.books(), directory);
+            return finished(BookExportDTO.State.COMPLETED, checkpoint, null);
+        } catch (InterruptedException | ClosedByInterruptException e) {
+            log.info("Export interrupted after book {}", lastId(checkpoint, checkpointPath));
+            return finished(BookExportDTO.State.INTERRUPTED, lastCheckpoint(checkpoint, checkpointPath), null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Export failed after book {}", lastId(checkpoint, checkpointPath), e);
+            return finished(BookExportDTO.State.FAILED, lastCheckpoint(checkpoint, checkpointPath), e.getMessage());
+        }
+    }
+
+    private ExportCheckpoint write(FileChannel csv, FileChannel columnar, ExportCheckpoint checkpoint,
+                                   Path checkpointPath) throws IOException, InterruptedException {
+        BookCsvWriter csvWriter = new BookCsvWriter(csv, CSV_BUFFER_SIZE);
+        if (checkpoint != null && (csv.size() < checkpoint.csvBytes()
+                || columnar.size() < checkpoint.columnarBytes())) {
+            log.warn("The export files are shorter than their checkpoint, starting the export over");
+            checkpoint = null;
+        }
+        BookColumnarWriter columnarWriter;
+        if (checkpoint == null) {
+            Files.deleteIfExists(checkpointPath);
+            csv.truncate(0);
+            columnar.truncate(0);
+            csvWriter.writeHeader();
+            csvWriter.flush();
+            columnarWriter = BookColumnarWriter.create(columnar);
+            checkpoint = new ExportCheckpoint(0, 0, csv.position(), columnar.position(), Instant.now());
+        } else {
+            // whatever was written after the checkpoint is written again
+            csv.truncate(checkpoint.csvBytes()).position(checkpoint.csvBytes());
+            columnar.truncate(checkpoint.columnarBytes()).position(checkpoint.columnarBytes());
+            columnarWriter = BookColumnarWriter.resume(columnar, checkpoint.columnarBytes(), checkpoint.lastId(),
+                    checkpoint.books());
+            log.info("Resuming export after book {}, {} books already written", checkpoint.lastId(),
+                    checkpoint.books());
+        }
+        status.set(progress(BookExportDTO.State.RUNNING, checkpoint));
+
+        int rowGroupSize = booksProperties.getExport().getRowGroupSize();
+        try (columnarWriter) {
+            int read;
+            do {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                read = readRowGroup(checkpoint.lastId(), rowGroupSize, csvWriter, columnarWriter);
+                if (read > 0) {
+                    csvWriter.flush();
+                    columnarWriter.flushRowGroup();
+                    csv.force(false);
+                    columnar.force(false);
+                    checkpoint = new ExportCheckpoint(columnarWriter.lastId(), columnarWriter.books(),
+                            csv.position(), columnar.position(), checkpoint.startedAt());
+                    checkpoint.write(checkpointPath);
+                    status.set(progress(BookExportDTO.State.RUNNING, checkpoint));
+                }
+            } while (read == rowGroupSize);
+            columnarWriter.finish();
+            columnar.force(false);
+        }
+        return checkpoint;
+    }
+
+    // the next books after afterId, in a transaction of their own so none is held for the whole export
+    private int readRowGroup(long afterId, int limit, BookCsvWriter csvWriter, BookColumnarWriter columnarWriter)
+            throws IOException {
+        try {
+            return transactionTemplate.execute(transaction -> {
+                try (Stream<BookView> books = bookViewRepository.stream(BookSpecifications.idGreaterThan(afterId),
+                        ALL_FIELDS, Sort.by("id"), Limit.of(limit))) {
+                    int read = 0;
+                    Iterator<BookView> iterator = books.iterator();
+                    while (iterator.hasNext()) {
+                        BookView book = iterator.next();
+                        csvWriter.write(book);
+                        columnarWriter.add(book);
+                        read++;
+                    }
+                    return read;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private BookExportDTO finished(BookExportDTO.State state, ExportCheckpoint checkpoint, String message) {
+        BookExportDTO finished = progress(state, checkpoint);
+        finished.setFinishedAt(Instant.now());
+        finished.setMessage(message);
+        status.set(finished);
+        return finished;
+    }
+
+    private BookExportDTO progress(BookExportDTO.State state, ExportCheckpoint checkpoint) {
+        Path directory = directory();
+        boolean complete = state == BookExportDTO.State.COMPLETED;
+        return new BookExportDTO(state,
+                checkpoint == null ? 0 : checkpoint.books(),
+                checkpoint == null ? null : checkpoint.lastId(),
+                directory.resolve(complete ? CSV : CSV + PART).toString(),
+                directory.resolve(complete ? COLUMNAR : COLUMNAR + PART).toString(),
+                checkpoint == null ? null : checkpoint.startedAt(),
+                null, null);
+    }
+
+    // the checkpoint on disk, which may be behind the one in memory if writing it failed
+    private static ExportCheckpoint lastCheckpoint(ExportCheckpoint current, Path checkpointPath) {
+        try {
+            ExportCheckpoint written = ExportCheckpoint.read(checkpointPath);
+            return written != null ? written : current;
+        } catch (IOException | RuntimeException e) {
+            return current;
+        }
+    }
+
+    private static long lastId(ExportCheckpoint current, Path checkpointPath) {
+        ExportCheckpoint checkpoint = lastCheckpoint(current, checkpointPath);
+        return checkpoint == null ? 0 : checkpoint.lastId();
+    }
+
+    private Path directory() {
+        return booksProperties.getExport().getDirectory();
+    }
+}
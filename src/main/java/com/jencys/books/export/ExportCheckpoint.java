@@ -0,0 +1,51 @@
+package com.jencys.books.export;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Properties;
+
+/**
+ * How far an export got: every book up to {@code lastId} is in the first {@code csvBytes} of the CSV file and
+ * the first {@code columnarBytes} of the columnar file, both forced to disk before the checkpoint is written.
+ * Anything past those offsets is cut off when the export resumes.
+ */
+record ExportCheckpoint(long lastId, long books, long csvBytes, long columnarBytes, Instant startedAt) {
+
+    // null when there is none
+    static ExportCheckpoint read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new ExportCheckpoint(
+                Long.parseLong(properties.getProperty("lastId")),
+                Long.parseLong(properties.getProperty("books")),
+                Long.parseLong(properties.getProperty("csvBytes")),
+                Long.parseLong(properties.getProperty("columnarBytes")),
+                Instant.parse(properties.getProperty("startedAt")));
+    }
+
+    // replaces the previous checkpoint atomically, so a crash leaves one or the other
+    void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("lastId", Long.toString(lastId));
+        properties.setProperty("books", Long.toString(books));
+        properties.setProperty("csvBytes", Long.toString(csvBytes));
+        properties.setProperty("columnarBytes", Long.toString(columnarBytes));
+        properties.setProperty("startedAt", startedAt.toString());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
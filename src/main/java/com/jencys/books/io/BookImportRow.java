@@ -0,0 +1,22 @@
+package com.jencys.books.io;
+
+import com.jencys.books.dto.BookDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookImportRow {
+    private long rowNumber;
+    private BookDTO book;
+    // set instead of book when the row could not be parsed
+    private String error;
+
+    public static BookImportRow of(long rowNumber, BookDTO book) {
+        return new BookImportRow(rowNumber, book, null);
+    }
+
+    public static BookImportRow failed(long rowNumber, String error) {
+        return new BookImportRow(rowNumber, null, error);
+    }
+}
@@ -0,0 +1,138 @@
+package com.jencys.books.io;
+
+import com.jencys.books.dto.BookDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads books from RFC 4180 CSV with a header row naming the columns
+ * ({@code title,author,isbn,publicationYear,description}, in any order).
+ */
+public class CsvBookRowIterator implements Iterator<BookImportRow> {
+    private final BufferedReader reader;
+    private final int[] columns = {-1, -1, -1, -1, -1};
+    private long rowNumber;
+    private List<String> nextRecord;
+
+    public CsvBookRowIterator(InputStream inputStream) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<String> header = readRecord();
+        if (header == null) {
+            return;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "")) {
+                case "title" -> columns[0] = i;
+                case "author" -> columns[1] = i;
+                case "isbn" -> columns[2] = i;
+                case "publicationyear" -> columns[3] = i;
+                case "description" -> columns[4] = i;
+                default -> { }
+            }
+        }
+        nextRecord = readRecord();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+
+    @Override
+    public BookImportRow next() {
+        if (nextRecord == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> record = nextRecord;
+        nextRecord = readRecord();
+        rowNumber++;
+
+        BookDTO book = new BookDTO();
+        book.setTitle(column(record, 0));
+        book.setAuthor(column(record, 1));
+        book.setIsbn(column(record, 2));
+        book.setDescription(column(record, 4));
+        String year = column(record, 3);
+        if (year != null && !year.isBlank()) {
+            try {
+                book.setPublicationYear(Integer.valueOf(year.trim()));
+            } catch (NumberFormatException e) {
+                return BookImportRow.failed(rowNumber, "Invalid publication year: " + year);
+            }
+        }
+        return BookImportRow.of(rowNumber, book);
+    }
+
+    private String column(List<String> record, int field) {
+        int index = columns[field];
+        if (index < 0 || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private List<String> readRecord() {
+        try {
+            String line = reader.readLine();
+            while (line != null && line.isEmpty()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // quoted field spanning lines
+                    String continuation = reader.readLine();
+                    if (continuation == null) {
+                        break;
+                    }
+                    field.append('\n');
+                    line = continuation;
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.jencys.books.io;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jencys.books.dto.BookDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads books one at a time from either a JSON array or newline-delimited JSON.
+ * A malformed document cannot be resynchronised, so the first parse error is reported as a
+ * failed row and ends the iteration.
+ */
+public class JsonBookRowIterator implements Iterator<BookImportRow> {
+    private final MappingIterator<BookDTO> values;
+    private long rowNumber;
+    private IOException error;
+    private boolean failed;
+
+    public JsonBookRowIterator(ObjectMapper objectMapper, InputStream inputStream) {
+        try {
+            this.values = objectMapper.readerFor(BookDTO.class).readValues(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (failed) {
+            return false;
+        }
+        if (error != null) {
+            return true;
+        }
+        try {
+            return values.hasNextValue();
+        } catch (IOException e) {
+            error = e;
+            return true;
+        }
+    }
+
+    @Override
+    public BookImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        rowNumber++;
+        if (error == null) {
+            try {
+                return BookImportRow.of(rowNumber, values.nextValue());
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        failed = true;
+        return BookImportRow.failed(rowNumber, error.getMessage());
+    }
+}
@@ -0,0 +1,64 @@
+package com.jencys.books.mapper;
+
+import com.jencys.books.dto.BookChangeDTO;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.model.BookChange;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.util.Isbn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Field-by-field mapping between {@link Book} and {@link BookDTO}; replaces reflective
+ * {@code BeanUtils.copyProperties} on every response path.
+ */
+@Component
+public class BookMapper {
+
+    public BookDTO toDTO(Book book) {
+        BookDTO dto = new BookDTO();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setAuthor(book.getAuthor());
+        dto.setIsbn(book.getIsbn());
+        dto.setPublicationYear(book.getPublicationYear());
+        dto.setDescription(book.getDescription());
+        dto.setVersion(book.getVersion());
+        return dto;
+    }
+
+    public BookDTO toDTO(BookView view) {
+        BookDTO dto = new BookDTO();
+        dto.setId(view.id());
+        dto.setTitle(view.title());
+        dto.setAuthor(view.author());
+        dto.setIsbn(view.isbn());
+        dto.setPublicationYear(view.publicationYear());
+        dto.setDescription(view.description());
+        dto.setVersion(view.version());
+        return dto;
+    }
+
+    public BookChangeDTO toDTO(BookChange change) {
+        return new BookChangeDTO(change.getId(), change.getType(), change.getBookId(), change.getBookVersion(),
+                change.getChangedAt());
+    }
+
+    public Book toEntity(BookDTO dto) {
+        Book book = new Book();
+        book.setId(dto.getId());
+        book.setVersion(dto.getVersion());
+        updateEntity(dto, book);
+        return book;
+    }
+
+    // copies every field except id and version; a valid ISBN is stored in its canonical ISBN-13 form
+    public void updateEntity(BookDTO dto, Book book) {
+        String isbn = Isbn.normalise(dto.getIsbn());
+        book.setTitle(dto.getTitle());
+        book.setAuthor(dto.getAuthor());
+        book.setIsbn(isbn != null ? isbn : dto.getIsbn());
+        book.setPublicationYear(dto.getPublicationYear());
+        book.setDescription(dto.getDescription());
+    }
+}
@@ -0,0 +1,69 @@
+package com.jencys.books.metrics;
+
+import com.jencys.books.config.BooksProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every repository call as {@code books.repository} and logs the ones slower than
+ * {@code books.metrics.slow-query-threshold}.
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    private static final String REPOSITORY_PACKAGE = "com.jencys.books.repository";
+
+    private final MeterRegistry meterRegistry;
+    private final BooksProperties booksProperties;
+
+    // this() rather than execution(): inherited JpaRepository methods are declared outside our package
+    @Around("this(com.jencys.books.repository.BookRepository) || within(com.jencys.books.repository..*)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = repositoryName(joinPoint.getThis());
+        String method = joinPoint.getSignature().getName();
+        String exception = "none";
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("books.repository")
+                    .description("Time spent in repository calls")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+
+            Duration threshold = booksProperties.getMetrics().getSlowQueryThreshold();
+            if (elapsed > threshold.toNanos()) {
+                log.warn("Slow repository call {}.{} took {} ms (threshold {} ms)", repository, method,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), threshold.toMillis());
+            }
+        }
+    }
+
+    static String repositoryName(Object bean) {
+        for (Class<?> type : bean.getClass().getInterfaces()) {
+            if (type.getPackageName().startsWith(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(bean).getSimpleName();
+    }
+}
@@ -1,9 +1,15 @@
 package com.jencys.books.model;
 
+import jakarta.persistence.Basic;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -11,10 +17,18 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = {
+        @Index(name = Book.ISBN_UNIQUE_INDEX, columnList = "isbn", unique = true),
+        @Index(name = "idx_book_title", columnList = "title"),
+        @Index(name = "idx_book_author", columnList = "author"),
+        @Index(name = "idx_book_publication_year", columnList = "publicationYear, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
+    public static final String ISBN_UNIQUE_INDEX = "ux_book_isbn";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,5 +45,11 @@ public class Book {
     @NotNull(message = "Publication year is required")
     private Integer publicationYear;
 
+    // unbounded text, only read when a caller asks for it (needs the build-time bytecode enhancement)
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     private String description;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.jencys.books.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outbox row written in the same transaction as the change to the book. The id is the sequence number
+ * consumers of the change feed resume from.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_book_change_changed_at", columnList = "changedAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChange {
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    // version of the book after the change; null for deletions
+    private Long bookVersion;
+
+    private Instant changedAt;
+
+    public static BookChange of(Type type, Long bookId, Long bookVersion) {
+        return new BookChange(null, bookId, type, bookVersion, Instant.now());
+    }
+}
@@ -0,0 +1,36 @@
+package com.jencys.books.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bound on concurrent requests, taken with compare-and-set rather than a lock. A limit of 0 or less
+ * only counts.
+ */
+final class Bulkhead {
+    private final int limit;
+    private final AtomicInteger active = new AtomicInteger();
+
+    Bulkhead(int limit) {
+        this.limit = limit;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = active.get();
+            if (limit > 0 && current >= limit) {
+                return false;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        active.decrementAndGet();
+    }
+
+    int active() {
+        return active.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.jencys.books.ratelimit;
+
+import com.jencys.books.config.BooksProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "books.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(BooksProperties booksProperties) {
+        return new RateLimiter(booksProperties);
+    }
+
+    @Bean
+    public WebMvcConfigurer rateLimitInterceptorConfigurer(RateLimiter rateLimiter, BooksProperties booksProperties) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new RateLimitInterceptor(rateLimiter,
+                                booksProperties.getRateLimit().getClientHeader()))
+                        .addPathPatterns("/api/**");
+            }
+        };
+    }
+}
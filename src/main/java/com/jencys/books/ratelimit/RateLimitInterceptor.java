@@ -0,0 +1,53 @@
+package com.jencys.books.ratelimit;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Admits requests through the {@link RateLimiter} before they reach a controller. The permit is held until
+ * the response completes, so a streamed export or event stream keeps its bulkhead slot for as long as it
+ * runs; rejections surface as {@link com.jencys.books.exception.RateLimitExceededException}.
+ */
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+    static final String PERMIT_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".permit";
+
+    private final RateLimiter rateLimiter;
+    // null unless a trusted proxy sets it
+    private final String clientHeader;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // async and error dispatches belong to a request that was already admitted
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        RateLimiter.Permit permit = rateLimiter.acquire(clientId(request),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        if (permit != null) {
+            request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        }
+        return true;
+    }
+
+    // not called for the dispatch that starts async processing, only for the one that ends it
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof RateLimiter.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.release();
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (clientHeader == null || clientHeader.isBlank()) {
+            return request.getRemoteAddr();
+        }
+        String clientId = request.getHeader(clientHeader);
+        return clientId == null || clientId.isBlank() ? request.getRemoteAddr() : clientId;
+    }
+}
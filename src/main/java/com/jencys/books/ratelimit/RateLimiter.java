@@ -0,0 +1,179 @@
+package com.jencys.books.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client token buckets and per-endpoint-group bulkheads ({@code books.rate-limit}). Client state lives
+ * in a Caffeine map, so lookups from different clients do not contend, and the buckets and bulkheads
+ * themselves are compare-and-set counters: nothing on the request path takes a lock.
+ */
+public class RateLimiter implements MeterBinder {
+    private final List<Group> groups;
+    private final Cache<ClientKey, ClientLimits> clients;
+    private final LongSupplier nanoTime;
+
+    public RateLimiter(BooksProperties booksProperties) {
+        this(booksProperties, System::nanoTime);
+    }
+
+    RateLimiter(BooksProperties booksProperties, LongSupplier nanoTime) {
+        BooksProperties.RateLimit config = booksProperties.getRateLimit();
+        this.groups = config.getGroups().stream()
+                .map(Group::new)
+                .collect(Collectors.toList());
+        // a client evicted while it still has requests running starts over with an empty bulkhead
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .expireAfterAccess(config.getClientIdleTimeout())
+                .build();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Takes a token and a concurrency slot for {@code clientId} in the group matching {@code path}; null when
+     * no group applies. The permit has to be released when the request completes.
+     *
+     * @throws RateLimitExceededException when the client is over its rate or the group over its concurrency
+     */
+    public Permit acquire(String clientId, String path) {
+        Group group = match(path);
+        if (group == null) {
+            return null;
+        }
+        ClientLimits limits = clients.get(new ClientKey(group.name, clientId), key -> new ClientLimits(group));
+
+        // the bulkheads first: their slots can be handed back, a token taken for a rejected request could not
+        if (!limits.bulkhead.tryAcquire()) {
+            group.concurrencyRejected.increment();
+            throw new RateLimitExceededException("Too many concurrent " + group.name + " requests from this client",
+                    Duration.ofSeconds(1));
+        }
+        if (!group.bulkhead.tryAcquire()) {
+            limits.bulkhead.release();
+            group.concurrencyRejected.increment();
+            throw new RateLimitExceededException("Too many concurrent " + group.name + " requests, retry later",
+                    Duration.ofSeconds(1));
+        }
+        if (limits.bucket != null) {
+            long wait = limits.bucket.tryAcquire(nanoTime.getAsLong());
+            if (wait > 0) {
+                group.bulkhead.release();
+                limits.bulkhead.release();
+                group.rateRejected.increment();
+                throw new RateLimitExceededException("Rate limit of " + group.name + " requests exceeded, retry later",
+                        Duration.ofNanos(wait));
+            }
+        }
+        group.permitted.increment();
+        return new Permit(group.bulkhead, limits.bulkhead);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Group group : groups) {
+            bindCounter(registry, group, "permitted", group.permitted);
+            bindCounter(registry, group, "rate_limited", group.rateRejected);
+            bindCounter(registry, group, "bulkhead_full", group.concurrencyRejected);
+            Gauge.builder("books.ratelimit.active", group.bulkhead, Bulkhead::active)
+                    .description("Requests currently holding a bulkhead slot")
+                    .tag("group", group.name)
+                    .register(registry);
+        }
+        Gauge.builder("books.ratelimit.clients", clients, Cache::estimatedSize)
+                .description("Clients with rate limiter state")
+                .register(registry);
+    }
+
+    private static void bindCounter(MeterRegistry registry, Group group, String outcome, LongAdder count) {
+        FunctionCounter.builder("books.ratelimit.requests", count, LongAdder::sum)
+                .description("Requests seen by the rate limiter, by outcome")
+                .tag("group", group.name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Group match(String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (Group group : groups) {
+            for (PathPattern pattern : group.patterns) {
+                if (pattern.matches(container)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The slots a request holds. Releasing is idempotent.
+     */
+    public static final class Permit {
+        private final Bulkhead group;
+        private final Bulkhead client;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Bulkhead group, Bulkhead client) {
+            this.group = group;
+            this.client = client;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                group.release();
+                client.release();
+            }
+        }
+    }
+
+    private record ClientKey(String group, String clientId) {
+    }
+
+    private static final class Group {
+        private final String name;
+        private final List<PathPattern> patterns;
+        private final BooksProperties.RateLimit.Group config;
+        private final Bulkhead bulkhead;
+        private final LongAdder permitted = new LongAdder();
+        private final LongAdder rateRejected = new LongAdder();
+        private final LongAdder concurrencyRejected = new LongAdder();
+
+        private Group(BooksProperties.RateLimit.Group config) {
+            this.name = config.getName();
+            this.patterns = config.getPaths().stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .collect(Collectors.toList());
+            this.config = config;
+            this.bulkhead = new Bulkhead(config.getMaxConcurrent());
+        }
+    }
+
+    private final class ClientLimits {
+        private final TokenBucket bucket;
+        private final Bulkhead bulkhead;
+
+        private ClientLimits(Group group) {
+            BooksProperties.RateLimit.Group config = group.config;
+            this.bucket = config.getRequestsPerSecond() > 0
+                    ? new TokenBucket(config.getRequestsPerSecond(), config.getBurst(), nanoTime.getAsLong())
+                    : null;
+            this.bulkhead = new Bulkhead(config.getMaxConcurrentPerClient());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.jencys.books.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket in its generic cell rate algorithm form: the only state is the theoretical arrival time of
+ * the next request, so taking a token is a single compare-and-set and never blocks.
+ */
+final class TokenBucket {
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.emissionInterval = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstTolerance = emissionInterval * (Math.max(burst, 1) - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token at {@code nowNanos}.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos);
+            long wait = next - nowNanos - burstTolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.jencys.books.repository;
+
+public interface BookAuthorCountProjection {
+    String getAuthor();
+    Long getBooks();
+}
@@ -0,0 +1,78 @@
+package com.jencys.books.repository;
+
+import com.jencys.books.model.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC batch inserts. Hibernate cannot batch inserts for IDENTITY ids, so bulk loads bypass it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookBatchRepository {
+    private static final String INSERT_SQL =
+            "insert into book (title, author, isbn, publication_year, description, version) values (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_CHANGE_SQL =
+            "insert into book_change (book_id, type, book_version, changed_at) values (?, 'CREATED', ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Book book = books.get(i);
+                        ps.setString(1, book.getTitle());
+                        ps.setString(2, book.getAuthor());
+                        ps.setString(3, book.getIsbn());
+                        ps.setInt(4, book.getPublicationYear());
+                        if (book.getDescription() != null) {
+                            ps.setString(5, book.getDescription());
+                        } else {
+                            ps.setNull(5, Types.VARCHAR);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return books.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            books.get(i).setVersion(0L);
+        }
+    }
+
+    // change feed outbox rows for books inserted by insertAll, in the same order
+    public void insertCreatedChanges(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        Timestamp changedAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, books, books.size(), (ps, book) -> {
+            ps.setLong(1, book.getId());
+            ps.setLong(2, book.getVersion());
+            ps.setTimestamp(3, changedAt);
+        });
+    }
+}
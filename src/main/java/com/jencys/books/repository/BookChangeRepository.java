@@ -0,0 +1,29 @@
+package com.jencys.books.repository;
+
+import com.jencys.books.model.BookChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+    @Query("select c.id from BookChange c where c.id > :after order by c.id")
+    List<Long> findIdsAfter(long after, Limit limit);
+
+    List<BookChange> findByIdBetweenOrderByIdAsc(long from, long to, Limit limit);
+
+    Optional<BookChange> findFirstByOrderByIdAsc();
+
+    @Query("select coalesce(max(c.id), 0) from BookChange c")
+    long findLatestSequence();
+
+    @Modifying
+    @Transactional
+    @Query("delete from BookChange c where c.changedAt < :before")
+    int deleteChangedBefore(Instant before);
+}
@@ -0,0 +1,55 @@
+package com.jencys.books.repository;
+
+import com.jencys.books.exception.InvalidSearchException;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Book attributes a client can ask for with {@code fields=}. Only the selected columns are read.
+ */
+public enum BookField {
+    ID("id"),
+    TITLE("title"),
+    AUTHOR("author"),
+    ISBN("isbn"),
+    PUBLICATION_YEAR("publicationYear"),
+    DESCRIPTION("description"),
+    VERSION("version");
+
+    private final String attribute;
+
+    BookField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String attribute() {
+        return attribute;
+    }
+
+    /**
+     * Parses a comma-separated list of attribute names; every field when it is empty. The id is always
+     * selected because pagination cursors and the cache are keyed on it.
+     */
+    public static Set<BookField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(BookField.class);
+        }
+        Set<BookField> result = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            result.add(of(name.trim()));
+        }
+        return result;
+    }
+
+    public static BookField of(String attribute) {
+        for (BookField field : values()) {
+            if (field.attribute.toLowerCase(Locale.ROOT).equals(attribute.toLowerCase(Locale.ROOT))) {
+                return field;
+            }
+        }
+        throw new InvalidSearchException("Unknown field " + attribute
+                + "; use id, title, author, isbn, publicationYear, description or version");
+    }
+}
@@ -0,0 +1,6 @@
+package com.jencys.books.repository;
+
+public interface BookIsbnProjection {
+    Long getId();
+    String getIsbn();
+}
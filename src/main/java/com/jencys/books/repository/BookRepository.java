@@ -1,12 +1,31 @@
 package com.jencys.books.repository;
 
 import com.jencys.books.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
-    List<Book> findByAuthorContainingIgnoreCase(String author);
-    List<Book> findByTitleContainingIgnoreCase(String title);
-    boolean existsByIsbn(String isbn);
-}
\ No newline at end of file
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(Collection<String> isbns);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b.id as id, b.title as title, b.author as author from Book b")
+    Stream<BookTextProjection> streamTextFields();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b.id as id, b.isbn as isbn from Book b")
+    Stream<BookIsbnProjection> streamIsbns();
+
+    @Query("select b.author as author, count(b) as books from Book b group by b.author")
+    List<BookAuthorCountProjection> countByAuthor();
+
+    @Query("select b.publicationYear as publicationYear, count(b) as books from Book b group by b.publicationYear")
+    List<BookYearCountProjection> countByPublicationYear();
+}
@@ -0,0 +1,105 @@
+package com.jencys.books.repository;
+
+import com.jencys.books.model.Book;
+import com.jencys.books.util.Isbn;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Predicates for {@link BookViewRepository}. Each factory returns null when its argument is absent,
+ * which {@link Specification#and} skips, so a search only carries the predicates it was given.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> authorContains(String author) {
+        return containsIgnoreCase("author", author);
+    }
+
+    public static Specification<Book> titleContains(String title) {
+        return containsIgnoreCase("title", title);
+    }
+
+    public static Specification<Book> publishedFrom(Integer year) {
+        if (year == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("publicationYear"), year);
+    }
+
+    public static Specification<Book> publishedTo(Integer year) {
+        if (year == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("publicationYear"), year);
+    }
+
+    // a prefix LIKE without a leading wildcard can range-scan the ISBN index; stored ISBNs have no hyphens
+    public static Specification<Book> isbnStartsWith(String prefix) {
+        String digits = prefix == null ? "" : Isbn.stripSeparators(prefix);
+        if (digits.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.like(root.get("isbn"), escapeLike(digits) + "%", '\\');
+    }
+
+    public static Specification<Book> isbnEquals(String isbn) {
+        return (root, query, cb) -> cb.equal(root.get("isbn"), isbn);
+    }
+
+    // matches rows stored before ISBNs were normalised too; the REPLACE defeats the ISBN index, so this scans
+    public static Specification<Book> isbnSpelledAs(Collection<String> compactSpellings) {
+        return (root, query, cb) -> {
+            Expression<String> isbn = root.get("isbn");
+            Expression<String> stripped = cb.function("REPLACE", String.class,
+                    cb.function("REPLACE", String.class, isbn, cb.literal("-"), cb.literal("")),
+                    cb.literal(" "), cb.literal(""));
+            return stripped.in(compactSpellings);
+        };
+    }
+
+    public static Specification<Book> idGreaterThan(long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Book> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Rows strictly after (value, id) in the given sort order; {@code attribute} is compared first and
+     * the id breaks ties.
+     */
+    public static <T extends Comparable<? super T>> Specification<Book> after(String attribute, T value,
+                                                                             long id, boolean ascending) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (attribute.equals("id")) {
+                return idAfter;
+            }
+            Path<T> field = root.get(attribute);
+            Predicate valueAfter = ascending ? cb.greaterThan(field, value) : cb.lessThan(field, value);
+            return cb.or(valueAfter, cb.and(cb.equal(field, value), idAfter));
+        };
+    }
+
+    private static Specification<Book> containsIgnoreCase(String attribute, String term) {
+        if (term == null || term.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(term.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), pattern, '\\');
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,7 @@
+package com.jencys.books.repository;
+
+public interface BookTextProjection {
+    Long getId();
+    String getTitle();
+    String getAuthor();
+}
@@ -0,0 +1,8 @@
+package com.jencys.books.repository;
+
+/**
+ * Read-only row of the book table; attributes that were not selected are null.
+ */
+public record BookView(Long id, String title, String author, String isbn, Integer publicationYear,
+                       String description, Long version) {
+}
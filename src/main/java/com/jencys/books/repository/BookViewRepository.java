@@ -0,0 +1,99 @@
+package com.jencys.books.repository;
+
+import com.jencys.books.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scalar queries that select only the requested columns into {@link BookView}s. Nothing is loaded into the
+ * persistence context, and the lazy {@code description} is read in the same statement when it is asked for
+ * instead of one extra select per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookViewRepository {
+    private static final String FETCH_SIZE = "500";
+
+    private final EntityManager entityManager;
+
+    public List<BookView> findAll(Specification<Book> specification, Set<BookField> fields, Sort sort, Limit limit) {
+        TypedQuery<Tuple> query = createQuery(specification, fields, sort);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList().stream()
+                .map(tuple -> toView(tuple, fields))
+                .collect(Collectors.toList());
+    }
+
+    // callers must close the stream, within a transaction
+    public Stream<BookView> streamAll(Set<BookField> fields) {
+        return stream(null, fields, Sort.by("id"));
+    }
+
+    // callers must close the stream, within a transaction
+    public Stream<BookView> stream(Specification<Book> specification, Set<BookField> fields, Sort sort) {
+        return stream(specification, fields, sort, Limit.unlimited());
+    }
+
+    // callers must close the stream, within a transaction
+    public Stream<BookView> stream(Specification<Book> specification, Set<BookField> fields, Sort sort,
+                                   Limit limit) {
+        TypedQuery<Tuple> query = createQuery(specification, fields, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultStream()
+                .map(tuple -> toView(tuple, fields));
+    }
+
+    private TypedQuery<Tuple> createQuery(Specification<Book> specification, Set<BookField> fields, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        query.multiselect(fields.stream()
+                .map(field -> root.get(field.attribute()).alias(field.attribute()))
+                .collect(Collectors.toList()));
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private static BookView toView(Tuple tuple, Set<BookField> fields) {
+        return new BookView(
+                get(tuple, fields, BookField.ID, Long.class),
+                get(tuple, fields, BookField.TITLE, String.class),
+                get(tuple, fields, BookField.AUTHOR, String.class),
+                get(tuple, fields, BookField.ISBN, String.class),
+                get(tuple, fields, BookField.PUBLICATION_YEAR, Integer.class),
+                get(tuple, fields, BookField.DESCRIPTION, String.class),
+                get(tuple, fields, BookField.VERSION, Long.class));
+    }
+
+    private static <T> T get(Tuple tuple, Set<BookField> fields, BookField field, Class<T> type) {
+        return fields.contains(field) ? tuple.get(field.attribute(), type) : null;
+    }
+}
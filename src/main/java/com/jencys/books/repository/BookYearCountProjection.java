@@ -0,0 +1,6 @@
+package com.jencys.books.repository;
+
+public interface BookYearCountProjection {
+    Integer getPublicationYear();
+    Long getBooks();
+}
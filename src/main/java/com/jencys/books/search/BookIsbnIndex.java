@@ -0,0 +1,161 @@
+package com.jencys.books.search;
+
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookIsbnProjection;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.util.Isbn;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * ISBN-13 to id lookup held in primitive maps, maintained like {@link BookSearchIndex}: rebuilt from the
+ * table at startup and updated after each committed write. Stored ISBNs are canonicalised on the way in,
+ * so rows written before ISBNs were normalised are found by any spelling of their ISBN.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookIsbnIndex implements MeterBinder {
+    public static final long MISSING = LongLongHashMap.MISSING;
+
+    private final BookRepository bookRepository;
+    private final PrimaryReads primaryReads;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongLongHashMap idsByIsbn = new LongLongHashMap();
+    private LongLongHashMap isbnsById = new LongLongHashMap();
+    // mutations received while a rebuild is streaming the table, replayed onto the new maps
+    private List<Runnable> pending;
+    private volatile boolean ready;
+
+    // from the primary: writes a lagging replica had not applied yet would be missing until the next rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LongLongHashMap newIdsByIsbn = new LongLongHashMap();
+        LongLongHashMap newIsbnsById = new LongLongHashMap();
+        try {
+            primaryReads.run(() -> {
+                try (Stream<BookIsbnProjection> books = bookRepository.streamIsbns()) {
+                    books.forEach(book -> put(newIdsByIsbn, newIsbnsById, book.getId(), Isbn.parse(book.getIsbn())));
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // lookups and duplicate checks keep going to the database until a rebuild succeeds
+            log.error("Could not build book ISBN index", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            idsByIsbn = newIdsByIsbn;
+            isbnsById = newIsbnsById;
+            pending.forEach(Runnable::run);
+            pending = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book ISBN index built with {} books", newIdsByIsbn.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idsByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The id of the book with ISBN-13 {@code isbn}, as returned by {@link Isbn#parse}, or {@link #MISSING}.
+     */
+    public long find(long isbn) {
+        if (isbn <= 0) {
+            return MISSING;
+        }
+        lock.readLock().lock();
+        try {
+            return idsByIsbn.get(isbn);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.isbn.index.size", this, BookIsbnIndex::size)
+                .description("Books held in the in-memory ISBN index")
+                .register(registry);
+    }
+
+    public void index(Book book) {
+        long id = book.getId();
+        long isbn = Isbn.parse(book.getIsbn());
+        apply(() -> put(idsByIsbn, isbnsById, id, isbn));
+    }
+
+    public void remove(Long id) {
+        apply(() -> removeId(idsByIsbn, isbnsById, id));
+    }
+
+    // an unparseable stored ISBN leaves the book out of the index
+    private static void put(LongLongHashMap idsByIsbn, LongLongHashMap isbnsById, long id, long isbn) {
+        removeId(idsByIsbn, isbnsById, id);
+        if (isbn != Isbn.INVALID) {
+            idsByIsbn.put(isbn, id);
+            isbnsById.put(id, isbn);
+        }
+    }
+
+    private static void removeId(LongLongHashMap idsByIsbn, LongLongHashMap isbnsById, long id) {
+        long previous = isbnsById.remove(id);
+        if (previous != MISSING && idsByIsbn.get(previous) == id) {
+            idsByIsbn.remove(previous);
+        }
+    }
+
+    private void apply(Runnable mutation) {
+        lock.writeLock().lock();
+        try {
+            mutation.run();
+            if (pending != null) {
+                pending.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
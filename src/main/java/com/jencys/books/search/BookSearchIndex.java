@@ -0,0 +1,169 @@
+package com.jencys.books.search;
+
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookTextProjection;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookSearchIndex implements MeterBinder {
+    private final BookRepository bookRepository;
+    private final PrimaryReads primaryReads;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NGramIndex titles = new NGramIndex();
+    private NGramIndex authors = new NGramIndex();
+    private BookSuggester suggestions = new BookSuggester();
+    // mutations received while a rebuild is streaming the table, replayed onto the new index
+    private List<Runnable> pending;
+    private volatile boolean ready;
+
+    // from the primary: writes a lagging replica had not applied yet would be missing until the next rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        NGramIndex newTitles = new NGramIndex();
+        NGramIndex newAuthors = new NGramIndex();
+        BookSuggester newSuggestions = new BookSuggester();
+        try {
+            primaryReads.run(() -> {
+                try (Stream<BookTextProjection> books = bookRepository.streamTextFields()) {
+                    books.forEach(book -> {
+                        newTitles.put(book.getId(), book.getTitle());
+                        newAuthors.put(book.getId(), book.getAuthor());
+                        newSuggestions.put(book.getId(), book.getTitle(), book.getAuthor());
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // searches keep using the repository queries until a rebuild succeeds
+            log.error("Could not build book search index", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            titles = newTitles;
+            authors = newAuthors;
+            suggestions = newSuggestions;
+            pending.forEach(Runnable::run);
+            pending = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book search index built with {} books", newTitles.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return titles.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.search.index.size", this, BookSearchIndex::size)
+                .description("Books held in the in-memory search index")
+                .register(registry);
+        Gauge.builder("books.search.index.ready", this, index -> index.isReady() ? 1 : 0)
+                .description("Whether searches are served from the index (1) or the database (0)")
+                .register(registry);
+    }
+
+    public void index(Book book) {
+        long id = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        apply(() -> {
+            titles.put(id, title);
+            authors.put(id, author);
+            suggestions.put(id, title, author);
+        });
+    }
+
+    public void remove(Long id) {
+        apply(() -> {
+            titles.remove(id);
+            authors.remove(id);
+            suggestions.remove(id);
+        });
+    }
+
+    public List<Long> searchTitle(String title) {
+        lock.readLock().lock();
+        try {
+            return titles.search(title);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> searchAuthor(String author) {
+        lock.readLock().lock();
+        try {
+            return authors.search(author);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookSuggestionDTO> suggest(String query, int limit, int maxEdits) {
+        lock.readLock().lock();
+        try {
+            return suggestions.suggest(query, limit, maxEdits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Runnable mutation) {
+        lock.writeLock().lock();
+        try {
+            mutation.run();
+            if (pending != null) {
+                pending.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
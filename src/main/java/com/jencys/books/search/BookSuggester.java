@@ -0,0 +1,84 @@
+package com.jencys.books.search;
+
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.dto.BookSuggestionDTO.Field;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Type-ahead over titles and authors: completions of what has been typed so far, tolerating typos in
+ * longer queries. Values are compared normalised (lower case, accents and punctuation dropped), so
+ * "garcia marq" completes "García Márquez". Not thread-safe; callers guard access or publish a suggester
+ * that is no longer modified.
+ */
+public class BookSuggester {
+    private final SuggestionTrie titles = new SuggestionTrie();
+    private final SuggestionTrie authors = new SuggestionTrie();
+
+    public void put(long id, String title, String author) {
+        titles.put(id, title == null ? null : normalise(title), title);
+        authors.put(id, author == null ? null : normalise(author), author);
+    }
+
+    public void remove(long id) {
+        titles.remove(id);
+        authors.remove(id);
+    }
+
+    public int size() {
+        return titles.size();
+    }
+
+    /**
+     * Up to {@code limit} titles and authors starting with {@code query}, or within {@code maxEdits} typos
+     * of it: exact prefixes first, then by the number of books holding the value.
+     */
+    public List<BookSuggestionDTO> suggest(String query, int limit, int maxEdits) {
+        String term = query == null ? "" : normalise(query);
+        int edits = allowedEdits(term, maxEdits);
+        List<BookSuggestionDTO> suggestions = new ArrayList<>(2 * limit);
+        titles.suggest(term, limit, edits).forEach(match -> suggestions.add(toDTO(match, Field.TITLE)));
+        authors.suggest(term, limit, edits).forEach(match -> suggestions.add(toDTO(match, Field.AUTHOR)));
+        suggestions.sort(Comparator.comparingInt(BookSuggestionDTO::getEdits)
+                .thenComparing(Comparator.comparingInt(BookSuggestionDTO::getBooks).reversed()));
+        return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+    }
+
+    public static String normalise(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder normalised = new StringBuilder(decomposed.length());
+        boolean separated = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                normalised.append(Character.toLowerCase(c));
+                separated = false;
+            } else if (!separated) {
+                normalised.append(' ');
+                separated = true;
+            }
+        }
+        if (separated && !normalised.isEmpty()) {
+            normalised.setLength(normalised.length() - 1);
+        }
+        return normalised.toString();
+    }
+
+    // a typo in the first few characters leaves too many completions to be useful
+    private static int allowedEdits(String term, int maxEdits) {
+        if (term.length() < 4) {
+            return 0;
+        }
+        return term.length() < 8 ? Math.min(1, maxEdits) : maxEdits;
+    }
+
+    private static BookSuggestionDTO toDTO(SuggestionTrie.Match match, Field field) {
+        return new BookSuggestionDTO(match.text(), field, match.books(), match.edits());
+    }
+}
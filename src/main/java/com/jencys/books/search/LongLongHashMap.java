@@ -0,0 +1,146 @@
+package com.jencys.books.search;
+
+/**
+ * Open-addressing {@code long} to {@code long} map with linear probing: keys and values sit in two flat
+ * arrays, so neither a lookup nor an insert allocates. Keys must be positive, and {@link #MISSING} stands
+ * for an absent value. Removal shifts the following entries back instead of leaving tombstones, so probe
+ * sequences stay short however many removals there have been. Not thread-safe; callers guard access.
+ */
+class LongLongHashMap {
+    static final long MISSING = -1;
+
+    private static final long FREE = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    LongLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    long get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == FREE) {
+                return MISSING;
+            }
+            if (candidate == key) {
+                return values[slot];
+            }
+        }
+    }
+
+    /**
+     * @return the previous value of {@code key}, or {@link #MISSING}
+     */
+    long put(long key, long value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive, got " + key);
+        }
+        int slot = slot(key);
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // at most half full, which keeps linear probes to a couple of slots
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return the value {@code key} had, or {@link #MISSING}
+     */
+    long remove(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == FREE) {
+                return MISSING;
+            }
+            if (candidate == key) {
+                long previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // moves later entries of the probe run into the freed slot unless that would put them before their home
+    private void shiftBack(int free) {
+        int slot = free;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == FREE) {
+                break;
+            }
+            int home = slot(key);
+            boolean movable = free <= slot
+                    ? home <= free || home > slot
+                    : home <= free && home > slot;
+            if (movable) {
+                keys[free] = key;
+                values[free] = values[slot];
+                free = slot;
+            }
+        }
+        keys[free] = FREE;
+        values[free] = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE) {
+                int slot = slot(key);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // ISBNs and ids are dense runs of numbers, so the bits are mixed before masking
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity >> 1 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
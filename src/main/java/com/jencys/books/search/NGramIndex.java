@@ -0,0 +1,90 @@
+package com.jencys.books.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over a single text column. Not thread-safe; callers guard access.
+ * Matches are verified against the stored value, so results are exactly those of
+ * {@code upper(column) like upper('%term%')}.
+ */
+class NGramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, String> values = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    void put(long id, String value) {
+        remove(id);
+        if (value == null) {
+            return;
+        }
+        String normalised = normalise(value);
+        values.put(id, normalised);
+        for (int i = 0; i + GRAM_LENGTH <= normalised.length(); i++) {
+            postings.computeIfAbsent(normalised.substring(i, i + GRAM_LENGTH), gram -> new HashSet<>()).add(id);
+        }
+    }
+
+    void remove(long id) {
+        String previous = values.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= previous.length(); i++) {
+            String gram = previous.substring(i, i + GRAM_LENGTH);
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    List<Long> search(String term) {
+        String normalised = normalise(term);
+        Collection<Long> candidates = normalised.length() < GRAM_LENGTH
+                ? values.keySet()
+                : smallestPosting(normalised);
+
+        List<Long> matches = new ArrayList<>();
+        for (Long id : candidates) {
+            if (values.get(id).contains(normalised)) {
+                matches.add(id);
+            }
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    private Collection<Long> smallestPosting(String normalised) {
+        Set<Long> smallest = null;
+        for (int i = 0; i + GRAM_LENGTH <= normalised.length(); i++) {
+            Set<Long> ids = postings.get(normalised.substring(i, i + GRAM_LENGTH));
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        return smallest;
+    }
+
+    static String normalise(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+}
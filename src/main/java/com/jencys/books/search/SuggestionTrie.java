@@ -0,0 +1,287 @@
+package com.jencys.books.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Radix tree over the normalised values of one text column, counting the books that hold each value. Every
+ * node keeps the largest count below it, so the most common completions of a prefix come out best-first
+ * without visiting the whole subtree. Typos are matched by walking the tree with one row of the edit
+ * distance table per character, pruning a branch once every cell of its row exceeds the allowed edits.
+ * Not thread-safe; callers guard access.
+ */
+class SuggestionTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node("");
+    private final Map<Long, String> terms = new HashMap<>();
+
+    /**
+     * @param term    the value as normalised by {@link BookSuggester#normalise}
+     * @param display the value as the book holds it, shown for the term
+     */
+    void put(long id, String term, String display) {
+        remove(id);
+        if (term == null || term.isEmpty()) {
+            return;
+        }
+        terms.put(id, term);
+        add(root, term, 0, display, 1);
+    }
+
+    void remove(long id) {
+        String term = terms.remove(id);
+        if (term != null) {
+            add(root, term, 0, null, -1);
+        }
+    }
+
+    int size() {
+        return terms.size();
+    }
+
+    /**
+     * Up to {@code limit} values with a prefix within {@code maxEdits} edits of {@code query}, fewest edits
+     * first and the most common first among equals.
+     */
+    List<Match> suggest(String query, int limit, int maxEdits) {
+        int[] row = new int[query.length() + 1];
+        Arrays.setAll(row, i -> i);
+        int rootEdits = query.length();
+        List<Candidate> candidates = new ArrayList<>();
+        if (rootEdits <= maxEdits) {
+            // short enough to be typed over entirely: everything matches, but closer subtrees rank higher
+            candidates.add(new Candidate(root, rootEdits));
+        }
+        if (rootEdits > 0) {
+            collect(root, query, row, maxEdits, rootEdits, candidates);
+        }
+        candidates.sort(Comparator.comparingInt(Candidate::edits));
+
+        List<Match> matches = new ArrayList<>(limit);
+        Set<Node> emitted = Collections.newSetFromMap(new IdentityHashMap<>());
+        int from = 0;
+        while (from < candidates.size() && matches.size() < limit) {
+            int edits = candidates.get(from).edits();
+            int to = from;
+            while (to < candidates.size() && candidates.get(to).edits() == edits) {
+                to++;
+            }
+            bestFirst(candidates.subList(from, to), edits, limit, emitted, matches);
+            from = to;
+        }
+        return matches;
+    }
+
+    // finds the subtrees whose path is within maxEdits of the query, each with its smallest distance
+    private static void collect(Node node, String query, int[] row, int maxEdits, int ancestorEdits,
+                                List<Candidate> candidates) {
+        int m = query.length();
+        for (Node child : node.children) {
+            int[] current = row;
+            int edits = Integer.MAX_VALUE;
+            boolean descend = true;
+            for (int i = 0; i < child.label.length(); i++) {
+                current = step(current, child.label.charAt(i), query);
+                int min = min(current);
+                if (min > maxEdits) {
+                    descend = false;
+                    break;
+                }
+                edits = Math.min(edits, current[m]);
+                // deeper characters cannot bring the last cell below the smallest one
+                if (current[m] == min) {
+                    descend = false;
+                    break;
+                }
+            }
+            if (edits < ancestorEdits && edits <= maxEdits) {
+                candidates.add(new Candidate(child, edits));
+            }
+            if (descend) {
+                collect(child, query, current, maxEdits, Math.min(ancestorEdits, edits), candidates);
+            }
+        }
+    }
+
+    // one character further into the tree: the next row of the Levenshtein table against the query
+    private static int[] step(int[] previous, char c, String query) {
+        int[] next = new int[previous.length];
+        next[0] = previous[0] + 1;
+        for (int j = 1; j < next.length; j++) {
+            int substitution = previous[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+            next[j] = Math.min(substitution, Math.min(previous[j] + 1, next[j - 1] + 1));
+        }
+        return next;
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static void bestFirst(List<Candidate> candidates, int edits, int limit, Set<Node> emitted,
+                                  List<Match> matches) {
+        PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingInt(Entry::priority).reversed());
+        for (Candidate candidate : candidates) {
+            queue.add(new Entry(candidate.node(), candidate.node().best, false));
+        }
+        while (!queue.isEmpty() && matches.size() < limit) {
+            Entry entry = queue.poll();
+            Node node = entry.node();
+            if (entry.terminal()) {
+                if (emitted.add(node)) {
+                    matches.add(new Match(node.display, node.count, edits));
+                }
+                continue;
+            }
+            if (node.count > 0) {
+                queue.add(new Entry(node, node.count, true));
+            }
+            for (Node child : node.children) {
+                queue.add(new Entry(child, child.best, false));
+            }
+        }
+    }
+
+    // adds delta books to the term below node, splitting edges on the way in and merging them on the way out
+    private static void add(Node node, String term, int offset, String display, int delta) {
+        if (offset == term.length()) {
+            node.count += delta;
+            if (node.count == 0) {
+                node.display = null;
+            } else if (node.display == null) {
+                node.display = display;
+            }
+            node.updateBest();
+            return;
+        }
+        Node child = node.child(term.charAt(offset));
+        if (child == null) {
+            if (delta > 0) {
+                Node leaf = new Node(term.substring(offset));
+                leaf.count = delta;
+                leaf.display = display;
+                leaf.best = delta;
+                node.addChild(leaf);
+                node.updateBest();
+            }
+            return;
+        }
+        int common = commonPrefix(child.label, term, offset);
+        if (common < child.label.length()) {
+            if (delta < 0) {
+                return;
+            }
+            Node middle = new Node(child.label.substring(0, common));
+            node.replaceChild(middle);
+            child.label = child.label.substring(common);
+            middle.addChild(child);
+            middle.updateBest();
+            child = middle;
+        }
+        add(child, term, offset + common, display, delta);
+        if (child.count == 0 && child.children.length == 0) {
+            node.removeChild(child);
+        } else if (child.count == 0 && child.children.length == 1) {
+            Node only = child.children[0];
+            only.label = child.label + only.label;
+            node.replaceChild(only);
+        }
+        node.updateBest();
+    }
+
+    private static int commonPrefix(String label, String term, int offset) {
+        int length = Math.min(label.length(), term.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == term.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    record Match(String text, int books, int edits) {
+    }
+
+    private record Candidate(Node node, int edits) {
+    }
+
+    private record Entry(Node node, int priority, boolean terminal) {
+    }
+
+    private static final class Node {
+        private String label;
+        // ordered by the first character of their label
+        private Node[] children = NO_CHILDREN;
+        private int count;
+        private String display;
+        private int best;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private void addChild(Node child) {
+            int insertion = -indexOf(child.label.charAt(0)) - 1;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertion);
+            grown[insertion] = child;
+            System.arraycopy(children, insertion, grown, insertion + 1, children.length - insertion);
+            children = grown;
+        }
+
+        // the replacement starts with the same character as the child it takes the place of
+        private void replaceChild(Node replacement) {
+            children[indexOf(replacement.label.charAt(0))] = replacement;
+        }
+
+        private void removeChild(Node child) {
+            int index = indexOf(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midFirst = children[mid].label.charAt(0);
+                if (midFirst < first) {
+                    low = mid + 1;
+                } else if (midFirst > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void updateBest() {
+            int max = count;
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.jencys.books.service;
+
+import com.jencys.books.dto.BookImportResultDTO;
+import com.jencys.books.io.BookImportRow;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+public interface BookImportService {
+    void importBooks(Iterator<BookImportRow> rows, Consumer<BookImportResultDTO> results);
+}
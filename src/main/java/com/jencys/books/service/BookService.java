@@ -1,15 +1,27 @@
 package com.jencys.books.service;
 
+import com.jencys.books.dto.BookBatchDTO;
 import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookService {
     BookDTO createBook(BookDTO bookDTO);
     BookDTO getBook(Long id);
-    List<BookDTO> getAllBooks();
+    BookDTO getBookByIsbn(String isbn);
+    BookBatchDTO getBooks(List<Long> ids);
+    BookPageDTO getAllBooks(Long afterId, Integer size, String fields);
+    void streamAllBooks(String fields, Consumer<BookDTO> consumer);
     BookDTO updateBook(Long id, BookDTO bookDTO);
     void deleteBook(Long id);
-    List<BookDTO> searchBooksByAuthor(String author);
-    List<BookDTO> searchBooksByTitle(String title);
+    void searchBooksByAuthor(String author, String fields, Consumer<BookDTO> consumer);
+    void searchBooksByTitle(String title, String fields, Consumer<BookDTO> consumer);
+    BookSearchPageDTO searchBooks(BookSearchCriteria criteria);
+    List<BookSuggestionDTO> suggest(String query, Integer limit);
+    String getCatalogueVersion();
 }
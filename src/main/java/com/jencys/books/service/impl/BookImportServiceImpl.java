@@ -0,0 +1,163 @@
+package com.jencys.books.service.impl;
+
+import com.jencys.books.cache.CatalogueVersion;
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.cluster.BookInvalidation;
+import com.jencys.books.cluster.BookInvalidationBus;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookImportResultDTO;
+import com.jencys.books.dto.BookImportResultDTO.Status;
+import com.jencys.books.io.BookImportRow;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookBatchRepository;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
+import com.jencys.books.stats.BookStats;
+import com.jencys.books.service.BookImportService;
+import com.jencys.books.util.Isbn;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Service
+@Timed("books.service")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookImportServiceImpl implements BookImportService {
+    private final BookRepository bookRepository;
+    private final BookBatchRepository bookBatchRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookIsbnIndex bookIsbnIndex;
+    private final BookStats bookStats;
+    private final BookChangeFeed bookChangeFeed;
+    private final BookInvalidationBus bookInvalidationBus;
+    private final BookMapper bookMapper;
+    private final CatalogueVersion catalogueVersion;
+    private final BooksProperties booksProperties;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    public void importBooks(Iterator<BookImportRow> rows, Consumer<BookImportResultDTO> results) {
+        int batchSize = booksProperties.getBulk().getBatchSize();
+        List<BookImportRow> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() == batchSize) {
+                importBatch(batch, results);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, results);
+        }
+    }
+
+    // each batch commits on its own so memory and lock duration stay bounded by the batch size
+    private void importBatch(List<BookImportRow> batch, Consumer<BookImportResultDTO> results) {
+        BookImportResultDTO[] report = new BookImportResultDTO[batch.size()];
+        List<Integer> candidates = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            BookImportRow row = batch.get(i);
+            String error = row.getError() != null ? row.getError() : validate(row.getBook());
+            if (error != null) {
+                String isbn = row.getBook() != null ? row.getBook().getIsbn() : null;
+                report[i] = new BookImportResultDTO(row.getRowNumber(), Status.INVALID, null, isbn, error);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        List<Book> inserted;
+        try {
+            inserted = insertCandidates(batch, candidates, report);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent writer claimed one of the ISBNs after the check; the re-check will report it
+            inserted = insertCandidates(batch, candidates, report);
+        }
+
+        if (!inserted.isEmpty()) {
+            catalogueVersion.increment();
+            bookChangeFeed.publish();
+        }
+        inserted.forEach(bookSearchIndex::index);
+        inserted.forEach(bookIsbnIndex::index);
+        inserted.forEach(bookStats::add);
+        inserted.forEach(book -> bookInvalidationBus.publish(BookInvalidation.changed(book)));
+        for (BookImportResultDTO result : report) {
+            results.accept(result);
+        }
+    }
+
+    private List<Book> insertCandidates(List<BookImportRow> batch, List<Integer> candidates,
+                                        BookImportResultDTO[] report) {
+        return transactionTemplate.execute(status -> {
+            // compared in the canonical form they are stored in, so spellings of one ISBN collide
+            Set<String> isbns = candidates.stream()
+                    .map(i -> Isbn.normalise(batch.get(i).getBook().getIsbn()))
+                    .collect(Collectors.toSet());
+            Set<String> taken = isbns.isEmpty() ? new HashSet<>() : new HashSet<>(bookRepository.findExistingIsbns(isbns));
+            if (bookIsbnIndex.isReady()) {
+                // also catches rows stored before normalisation, whose ISBN the query above cannot match
+                isbns.stream()
+                        .filter(isbn -> bookIsbnIndex.find(Isbn.parse(isbn)) != BookIsbnIndex.MISSING)
+                        .forEach(taken::add);
+            }
+
+            List<Book> books = new ArrayList<>(candidates.size());
+            List<Integer> positions = new ArrayList<>(candidates.size());
+            for (int i : candidates) {
+                BookImportRow row = batch.get(i);
+                String isbn = Isbn.normalise(row.getBook().getIsbn());
+                if (!taken.add(isbn)) {
+                    report[i] = new BookImportResultDTO(row.getRowNumber(), Status.DUPLICATE, null, isbn,
+                            "Book with ISBN " + isbn + " already exists");
+                    continue;
+                }
+                Book book = new Book();
+                bookMapper.updateEntity(row.getBook(), book);
+                books.add(book);
+                positions.add(i);
+            }
+
+            bookBatchRepository.insertAll(books);
+            bookBatchRepository.insertCreatedChanges(books);
+            for (int j = 0; j < books.size(); j++) {
+                int i = positions.get(j);
+                Book book = books.get(j);
+                report[i] = new BookImportResultDTO(batch.get(i).getRowNumber(), Status.CREATED, book.getId(),
+                        book.getIsbn(), null);
+            }
+            return books;
+        });
+    }
+
+    private String validate(BookDTO book) {
+        if (book == null) {
+            return "Empty row";
+        }
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(book);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,215 @@
+package com.jencys.books.service.impl;
+
+import com.jencys.books.exception.InvalidSearchException;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookSpecifications;
+import com.jencys.books.repository.BookView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Sort orders of the combined search and their keyset cursors. A cursor is the sort value and id of the
+ * last book of a page, base64url-encoded so titles containing separators survive the query string.
+ * <p>
+ * The same orders are available in memory ({@link #comparator}, {@link #isAfter}) for services that do not
+ * query the database.
+ */
+enum BookSearchSort {
+    ID("id") {
+        @Override
+        String value(BookView book) {
+            return "";
+        }
+
+        @Override
+        Comparable<?> key(BookView book) {
+            return null;
+        }
+
+        @Override
+        Comparable<?> key(String value) {
+            return null;
+        }
+
+        @Override
+        Specification<Book> after(String value, long id, boolean ascending) {
+            return BookSpecifications.after("id", id, id, ascending);
+        }
+    },
+    TITLE("title") {
+        @Override
+        String value(BookView book) {
+            return book.title();
+        }
+
+        @Override
+        Comparable<?> key(BookView book) {
+            return book.title();
+        }
+
+        @Override
+        Comparable<?> key(String value) {
+            return value;
+        }
+
+        @Override
+        Specification<Book> after(String value, long id, boolean ascending) {
+            return BookSpecifications.after("title", value, id, ascending);
+        }
+    },
+    AUTHOR("author") {
+        @Override
+        String value(BookView book) {
+            return book.author();
+        }
+
+        @Override
+        Comparable<?> key(BookView book) {
+            return book.author();
+        }
+
+        @Override
+        Comparable<?> key(String value) {
+            return value;
+        }
+
+        @Override
+        Specification<Book> after(String value, long id, boolean ascending) {
+            return BookSpecifications.after("author", value, id, ascending);
+        }
+    },
+    PUBLICATION_YEAR("publicationYear") {
+        @Override
+        String value(BookView book) {
+            return String.valueOf(book.publicationYear());
+        }
+
+        @Override
+        Comparable<?> key(BookView book) {
+            return book.publicationYear();
+        }
+
+        @Override
+        Comparable<?> key(String value) {
+            return Integer.valueOf(value);
+        }
+
+        @Override
+        Specification<Book> after(String value, long id, boolean ascending) {
+            return BookSpecifications.after("publicationYear", Integer.valueOf(value), id, ascending);
+        }
+    };
+
+    private final String attribute;
+
+    BookSearchSort(String attribute) {
+        this.attribute = attribute;
+    }
+
+    abstract String value(BookView book);
+
+    // the sort attribute of a book and of a cursor value, compared in memory
+    abstract Comparable<?> key(BookView book);
+
+    abstract Comparable<?> key(String value);
+
+    abstract Specification<Book> after(String value, long id, boolean ascending);
+
+    static BookSearchSort from(String attribute) {
+        if (attribute == null || attribute.isBlank()) {
+            return ID;
+        }
+        for (BookSearchSort sort : values()) {
+            if (sort.attribute.equalsIgnoreCase(attribute.trim())) {
+                return sort;
+            }
+        }
+        throw new InvalidSearchException("Cannot sort by " + attribute + "; use id, title, author or publicationYear");
+    }
+
+    static Sort.Direction direction(String order) {
+        if (order == null || order.isBlank()) {
+            return Sort.Direction.ASC;
+        }
+        try {
+            return Sort.Direction.fromString(order.trim());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSearchException("Cannot order by " + order + "; use asc or desc");
+        }
+    }
+
+    Sort toSort(Sort.Direction direction) {
+        return this == ID ? Sort.by(direction, "id") : Sort.by(direction, attribute, "id");
+    }
+
+    // the sort attribute has to be selected for the cursor of the last row to be built
+    BookField field() {
+        return BookField.of(attribute);
+    }
+
+    String cursor(BookView book) {
+        String position = book.id() + ":" + value(book);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Specification<Book> after(String cursor, boolean ascending) {
+        String position = decode(cursor);
+        int separator = position.indexOf(':');
+        try {
+            return after(position.substring(separator + 1), Long.parseLong(position.substring(0, separator)),
+                    ascending);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw invalidCursor(cursor);
+        }
+    }
+
+    // nulls sort low, as in the database
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Comparator<BookView> comparator(boolean ascending) {
+        Comparator<BookView> byKey = Comparator.comparing((BookView book) -> (Comparable) key(book),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<BookView> order = byKey.thenComparing(BookView::id);
+        return ascending ? order : order.reversed();
+    }
+
+    // the in-memory counterpart of after(cursor, ascending)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Predicate<BookView> isAfter(String cursor, boolean ascending) {
+        String position = decode(cursor);
+        int separator = position.indexOf(':');
+        long id;
+        Comparable lastKey;
+        try {
+            id = Long.parseLong(position.substring(0, separator));
+            lastKey = key(position.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw invalidCursor(cursor);
+        }
+        Comparator<Comparable> keys = Comparator.nullsFirst(Comparator.naturalOrder());
+        return book -> {
+            int comparison = keys.compare((Comparable) key(book), lastKey);
+            if (comparison == 0) {
+                comparison = Long.compare(book.id(), id);
+            }
+            return ascending ? comparison > 0 : comparison < 0;
+        };
+    }
+
+    private String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor(cursor);
+        }
+    }
+
+    private InvalidSearchException invalidCursor(String cursor) {
+        return new InvalidSearchException("Cursor " + cursor + " was not issued for a search sorted by " + attribute);
+    }
+}
@@ -1,96 +1,428 @@
 package com.jencys.books.service.impl;
 
+import com.jencys.books.cache.BookCache;
+import com.jencys.books.cache.CatalogueVersion;
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.cluster.BookInvalidation;
+import com.jencys.books.cluster.BookInvalidationBus;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.dto.BookBatchDTO;
 import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
 import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.BookVersionMismatchException;
 import com.jencys.books.exception.DuplicateISBNException;
+import com.jencys.books.exception.InvalidBatchException;
+import com.jencys.books.exception.InvalidIsbnException;
+import com.jencys.books.mapper.BookMapper;
 import com.jencys.books.repository.BookRepository;
 import com.jencys.books.model.Book;
+import com.jencys.books.model.BookChange;
+import com.jencys.books.repository.BookChangeRepository;
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookSpecifications;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.repository.BookViewRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
 import com.jencys.books.service.BookService;
+import com.jencys.books.stats.BookStats;
+import com.jencys.books.util.Isbn;
+import com.jencys.books.util.TransactionCallbacks;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// replaced by SnapshotBookServiceImpl on read-only nodes
 @Service
+@Timed("books.service")
 @Transactional
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class BookServiceImpl implements BookService {
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final Set<BookField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
     private final BookRepository bookRepository;
+    private final BookViewRepository bookViewRepository;
+    private final BookChangeRepository bookChangeRepository;
+    private final BookChangeFeed bookChangeFeed;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookIsbnIndex bookIsbnIndex;
+    private final BookStats bookStats;
+    private final BookCache bookCache;
+    private final BookInvalidationBus bookInvalidationBus;
+    private final CatalogueVersion catalogueVersion;
+    private final BookMapper bookMapper;
+    private final BooksProperties booksProperties;
+    private final PrimaryReads primaryReads;
 
+    // ISBN uniqueness is enforced by the unique index; violations surface as DataIntegrityViolationException.
+    // Every write also records a BookChange in the same transaction, the outbox the change feed reads from.
     public BookDTO createBook(BookDTO bookDTO) {
-        if (bookRepository.existsByIsbn(bookDTO.getIsbn())) {
-            throw new DuplicateISBNException("Book with ISBN " + bookDTO.getIsbn() + " already exists");
-        }
-
+        checkIsbnAvailable(bookDTO.getIsbn(), null);
         Book book = new Book();
-        BeanUtils.copyProperties(bookDTO, book);
+        bookMapper.updateEntity(bookDTO, book);
         Book savedBook = bookRepository.save(book);
-        BookDTO savedBookDTO = new BookDTO();
-        BeanUtils.copyProperties(savedBook, savedBookDTO);
-        return savedBookDTO;
+        bookChangeRepository.save(BookChange.of(BookChange.Type.CREATED, savedBook.getId(), savedBook.getVersion()));
+        TransactionCallbacks.afterCommit(() -> {
+            catalogueVersion.increment();
+            bookSearchIndex.index(savedBook);
+            bookIsbnIndex.index(savedBook);
+            bookStats.add(savedBook);
+            bookChangeFeed.publish();
+            bookInvalidationBus.publish(BookInvalidation.changed(savedBook));
+        });
+        return bookMapper.toDTO(savedBook);
     }
 
+    // cache hits must not check out a connection, so only the repository call is transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookDTO getBook(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new BookNotFoundException("Book not found with id: " + id));
-        BookDTO bookDTO = new BookDTO();
-        BeanUtils.copyProperties(book, bookDTO);
-        return bookDTO;
-    }
-
-    public List<BookDTO> getAllBooks() {
-        return bookRepository.findAll().stream()
-                .map(book -> {
-                    BookDTO dto = new BookDTO();
-                    BeanUtils.copyProperties(book, dto);
-                    return dto;
-                })
+        return bookCache.get(id, this::loadBook);
+    }
+
+    /**
+     * The book with the given ISBN, in any ISBN-10 or ISBN-13 spelling. Resolved to an id in memory and then
+     * served like {@link #getBook}, so a cached book needs no database access at all.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookDTO getBookByIsbn(String isbn) {
+        long key = Isbn.parse(isbn);
+        if (key == Isbn.INVALID) {
+            throw new InvalidIsbnException("Not a valid ISBN-10 or ISBN-13: " + isbn);
+        }
+        if (!bookIsbnIndex.isReady()) {
+            // the canonical form can use the ISBN index; only a miss falls back to the other stored spellings
+            return findOneByIsbn(BookSpecifications.isbnEquals(Isbn.format(key)))
+                    .or(() -> findOneByIsbn(BookSpecifications.isbnSpelledAs(Isbn.compactSpellings(key))))
+                    .map(bookMapper::toDTO)
+                    .orElseThrow(() -> new BookNotFoundException("Book not found with ISBN: " + isbn));
+        }
+        long id = bookIsbnIndex.find(key);
+        if (id == BookIsbnIndex.MISSING) {
+            throw new BookNotFoundException("Book not found with ISBN: " + isbn);
+        }
+        return bookCache.get(id, this::loadBook);
+    }
+
+    // One statement including the lazy description, rather than the entity plus a second select for it.
+    // Read from the primary: a lagging replica could put back the book an update just evicted, and the
+    // cache would serve that until it expired.
+    private BookDTO loadBook(Long id) {
+        return primaryReads.read(() -> bookViewRepository.findAll(
+                        BookSpecifications.idIn(List.of(id)), ALL_FIELDS, Sort.unsorted(), Limit.of(1)).stream()
+                .findFirst()
+                .map(bookMapper::toDTO)
+                .orElseThrow(() -> new BookNotFoundException("Book not found with id: " + id)));
+    }
+
+    /**
+     * The books with the given ids, in request order and without duplicates. Cached books are served from
+     * the cache and the rest are loaded with one IN query per chunk; ids that match no book are reported in
+     * {@code missingIds} instead of failing the request.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookBatchDTO getBooks(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new BookBatchDTO(List.of(), List.of());
+        }
+        int maxIds = booksProperties.getBulk().getMaxIds();
+        if (ids.size() > maxIds) {
+            throw new InvalidBatchException("At most " + maxIds + " ids can be requested at once");
+        }
+        // List.of and other immutable lists throw on contains(null)
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidBatchException("Ids must not be null");
+        }
+
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, BookDTO> found = bookCache.getAll(requested, this::loadBooks);
+        List<BookDTO> books = new ArrayList<>(requested.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            BookDTO book = found.get(id);
+            if (book == null) {
+                missingIds.add(id);
+            } else {
+                books.add(book);
+            }
+        }
+        return new BookBatchDTO(books, missingIds);
+    }
+
+    // a scalar projection from the primary like loadBook: findAllById would select each lazy description
+    // separately
+    private Map<Long, BookDTO> loadBooks(Set<Long> ids) {
+        List<Long> pending = new ArrayList<>(ids);
+        Map<Long, BookDTO> result = new HashMap<>();
+        primaryReads.run(() -> {
+            for (int from = 0; from < pending.size(); from += ID_CHUNK_SIZE) {
+                List<Long> chunk = pending.subList(from, Math.min(from + ID_CHUNK_SIZE, pending.size()));
+                bookViewRepository.findAll(BookSpecifications.idIn(chunk), ALL_FIELDS, Sort.unsorted(),
+                                Limit.unlimited())
+                        .forEach(book -> result.put(book.id(), bookMapper.toDTO(book)));
+            }
+        });
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public BookPageDTO getAllBooks(Long afterId, Integer size, String fields) {
+        int pageSize = resolvePageSize(size);
+        List<BookView> books = bookViewRepository.findAll(
+                BookSpecifications.idGreaterThan(afterId == null ? 0L : afterId),
+                BookField.parse(fields), Sort.by("id"), Limit.of(pageSize + 1));
+
+        List<BookDTO> content = books.stream()
+                .limit(pageSize)
+                .map(bookMapper::toDTO)
                 .collect(Collectors.toList());
+        Long nextCursor = books.size() > pageSize ? content.get(pageSize - 1).getId() : null;
+        return new BookPageDTO(content, nextCursor);
+    }
+
+    // scalar rows never enter the persistence context, so memory stays flat however large the table is
+    @Transactional(readOnly = true)
+    public void streamAllBooks(String fields, Consumer<BookDTO> consumer) {
+        try (Stream<BookView> books = bookViewRepository.streamAll(BookField.parse(fields))) {
+            books.forEach(book -> consumer.accept(bookMapper.toDTO(book)));
+        }
     }
 
     public BookDTO updateBook(Long id, BookDTO bookDTO) {
         Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new BookNotFoundException("Book not found with id: " + id));
 
-        if (!existingBook.getIsbn().equals(bookDTO.getIsbn()) &&
-                bookRepository.existsByIsbn(bookDTO.getIsbn())) {
-            throw new DuplicateISBNException("Book with ISBN " + bookDTO.getIsbn() + " already exists");
+        // a client-supplied version (body or If-Match) must match; concurrent writers are caught by the
+        // version check of the UPDATE itself
+        if (bookDTO.getVersion() != null && !bookDTO.getVersion().equals(existingBook.getVersion())) {
+            throw new BookVersionMismatchException("Book with id " + id + " is at version "
+                    + existingBook.getVersion() + ", not " + bookDTO.getVersion());
         }
 
-        BeanUtils.copyProperties(bookDTO, existingBook, "id");
-        Book updatedBook = bookRepository.save(existingBook);
-        BookDTO updatedBookDTO = new BookDTO();
-        BeanUtils.copyProperties(updatedBook, updatedBookDTO);
-        return updatedBookDTO;
+        checkIsbnAvailable(bookDTO.getIsbn(), id);
+        String previousAuthor = existingBook.getAuthor();
+        Integer previousYear = existingBook.getPublicationYear();
+        bookMapper.updateEntity(bookDTO, existingBook);
+        // flush now so an ISBN conflict is raised here rather than at commit
+        Book updatedBook = bookRepository.saveAndFlush(existingBook);
+        bookChangeRepository.save(BookChange.of(BookChange.Type.UPDATED, id, updatedBook.getVersion()));
+        TransactionCallbacks.afterCommit(() -> {
+            bookCache.invalidate(id);
+            catalogueVersion.increment();
+            bookSearchIndex.index(updatedBook);
+            bookIsbnIndex.index(updatedBook);
+            bookStats.update(previousAuthor, previousYear, updatedBook);
+            bookChangeFeed.publish();
+            bookInvalidationBus.publish(BookInvalidation.changed(updatedBook));
+        });
+        return bookMapper.toDTO(updatedBook);
     }
 
+    // loaded rather than checked with existsById: the stats need its author and year, and deleteById would
+    // load it anyway
     public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)) {
-            throw new BookNotFoundException("Book not found with id: " + id);
+        Book book = bookRepository.findById(id)
+                .orElseThrow(() -> new BookNotFoundException("Book not found with id: " + id));
+        bookRepository.delete(book);
+        bookChangeRepository.save(BookChange.of(BookChange.Type.DELETED, id, null));
+        TransactionCallbacks.afterCommit(() -> {
+            bookCache.invalidate(id);
+            catalogueVersion.increment();
+            bookSearchIndex.remove(id);
+            bookIsbnIndex.remove(id);
+            bookStats.remove(book.getAuthor(), book.getPublicationYear());
+            bookChangeFeed.publish();
+            bookInvalidationBus.publish(BookInvalidation.deleted(id));
+        });
+    }
+
+    // matches are handed over as they are read, so an unselective term never builds the whole result
+    @Transactional(readOnly = true)
+    public void searchBooksByAuthor(String author, String fields, Consumer<BookDTO> consumer) {
+        Set<BookField> selected = BookField.parse(fields);
+        if (bookSearchIndex.isReady()) {
+            forEachInIdOrder(bookSearchIndex.searchAuthor(author), selected, consumer);
+        } else {
+            forEach(BookSpecifications.authorContains(author), selected, consumer);
         }
-        bookRepository.deleteById(id);
     }
 
-    public List<BookDTO> searchBooksByAuthor(String author) {
-        return bookRepository.findByAuthorContainingIgnoreCase(author).stream()
-                .map(book -> {
-                    BookDTO dto = new BookDTO();
-                    BeanUtils.copyProperties(book, dto);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void searchBooksByTitle(String title, String fields, Consumer<BookDTO> consumer) {
+        Set<BookField> selected = BookField.parse(fields);
+        if (bookSearchIndex.isReady()) {
+            forEachInIdOrder(bookSearchIndex.searchTitle(title), selected, consumer);
+        } else {
+            forEach(BookSpecifications.titleContains(title), selected, consumer);
+        }
     }
 
-    public List<BookDTO> searchBooksByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title).stream()
-                .map(book -> {
-                    BookDTO dto = new BookDTO();
-                    BeanUtils.copyProperties(book, dto);
-                    return dto;
-                })
+    @Transactional(readOnly = true)
+    public BookSearchPageDTO searchBooks(BookSearchCriteria criteria) {
+        int pageSize = resolvePageSize(criteria.getSize());
+        BookSearchSort sort = BookSearchSort.from(criteria.getSort());
+        Sort.Direction direction = BookSearchSort.direction(criteria.getOrder());
+
+        Specification<Book> specification = Specification
+                .where(BookSpecifications.publishedFrom(criteria.getYearFrom()))
+                .and(BookSpecifications.publishedTo(criteria.getYearTo()))
+                .and(BookSpecifications.isbnStartsWith(criteria.getIsbnPrefix()));
+
+        List<Long> candidates = indexCandidates(criteria.getAuthor(), criteria.getTitle());
+        if (candidates == null) {
+            specification = specification
+                    .and(BookSpecifications.authorContains(criteria.getAuthor()))
+                    .and(BookSpecifications.titleContains(criteria.getTitle()));
+        } else if (candidates.isEmpty()) {
+            return new BookSearchPageDTO(List.of(), null);
+        } else {
+            specification = specification.and(BookSpecifications.idIn(candidates));
+        }
+
+        if (criteria.getAfter() != null && !criteria.getAfter().isBlank()) {
+            specification = specification.and(sort.after(criteria.getAfter(), direction.isAscending()));
+        }
+
+        Set<BookField> fields = BookField.parse(criteria.getFields());
+        fields.add(sort.field());
+        List<BookView> books = bookViewRepository.findAll(specification, fields, sort.toSort(direction),
+                Limit.of(pageSize + 1));
+
+        List<BookDTO> content = books.stream()
+                .limit(pageSize)
+                .map(bookMapper::toDTO)
                 .collect(Collectors.toList());
+        String nextCursor = books.size() > pageSize ? sort.cursor(books.get(pageSize - 1)) : null;
+        return new BookSearchPageDTO(content, nextCursor);
+    }
+
+    /**
+     * Type-ahead completions, answered from the search index alone. Best effort: until the index is built
+     * there are no suggestions rather than a table scan per keystroke.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<BookSuggestionDTO> suggest(String query, Integer limit) {
+        if (!bookSearchIndex.isReady()) {
+            return List.of();
+        }
+        return bookSearchIndex.suggest(query, resolveSuggestLimit(limit),
+                booksProperties.getSuggest().getMaxEdits());
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getCatalogueVersion() {
+        return catalogueVersion.current();
+    }
+
+    /**
+     * Rejects an ISBN another book already has without a round trip to the database. The index only
+     * reflects committed writes, so the unique index still decides between concurrent writers.
+     */
+    private Optional<BookView> findOneByIsbn(Specification<Book> spec) {
+        return bookViewRepository.findAll(spec, ALL_FIELDS, Sort.unsorted(), Limit.of(1)).stream().findFirst();
+    }
+
+    private void checkIsbnAvailable(String isbn, Long id) {
+        if (!bookIsbnIndex.isReady()) {
+            return;
+        }
+        long owner = bookIsbnIndex.find(Isbn.parse(isbn));
+        if (owner != BookIsbnIndex.MISSING && (id == null || owner != id)) {
+            throw new DuplicateISBNException("Book with ISBN " + isbn + " already exists");
+        }
+    }
+
+    // one IN query per chunk of ids, so at most a chunk of rows is held at a time
+    private void forEachInIdOrder(List<Long> ids, Set<BookField> fields, Consumer<BookDTO> consumer) {
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            bookViewRepository.findAll(BookSpecifications.idIn(chunk), fields, Sort.by("id"), Limit.unlimited())
+                    .forEach(book -> consumer.accept(bookMapper.toDTO(book)));
+        }
+    }
+
+    private void forEach(Specification<Book> specification, Set<BookField> fields, Consumer<BookDTO> consumer) {
+        try (Stream<BookView> books = bookViewRepository.stream(specification, fields, Sort.by("id"))) {
+            books.forEach(book -> consumer.accept(bookMapper.toDTO(book)));
+        }
+    }
+
+    /**
+     * Ids matching the text terms according to the search index, or null when the terms are better left to
+     * the database: the index is not ready, no term was given, or the matches are too many for an IN list.
+     */
+    private List<Long> indexCandidates(String author, String title) {
+        boolean hasAuthor = author != null && !author.isBlank();
+        boolean hasTitle = title != null && !title.isBlank();
+        if (!bookSearchIndex.isReady() || (!hasAuthor && !hasTitle)) {
+            return null;
+        }
+        List<Long> ids = hasAuthor ? bookSearchIndex.searchAuthor(author) : null;
+        if (hasTitle) {
+            List<Long> titleIds = bookSearchIndex.searchTitle(title);
+            ids = ids == null ? titleIds : intersectSorted(ids, titleIds);
+        }
+        return ids.size() > ID_CHUNK_SIZE ? null : ids;
+    }
+
+    private static List<Long> intersectSorted(List<Long> left, List<Long> right) {
+        List<Long> result = new ArrayList<>(Math.min(left.size(), right.size()));
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            int comparison = left.get(i).compareTo(right.get(j));
+            if (comparison == 0) {
+                result.add(left.get(i));
+                i++;
+                j++;
+            } else if (comparison < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private int resolvePageSize(Integer size) {
+        BooksProperties.Pagination pagination = booksProperties.getPagination();
+        if (size == null || size < 1) {
+            return pagination.getDefaultSize();
+        }
+        return Math.min(size, pagination.getMaxSize());
+    }
+
+    private int resolveSuggestLimit(Integer limit) {
+        BooksProperties.Suggest suggest = booksProperties.getSuggest();
+        if (limit == null || limit < 1) {
+            return suggest.getDefaultLimit();
+        }
+        return Math.min(limit, suggest.getMaxLimit());
     }
 }
\ No newline at end of file
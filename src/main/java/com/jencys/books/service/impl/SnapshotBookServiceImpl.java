@@ -0,0 +1,342 @@
+package com.jencys.books.service.impl;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookBatchDTO;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.InvalidBatchException;
+import com.jencys.books.exception.InvalidIsbnException;
+import com.jencys.books.exception.ReadOnlyCatalogueException;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.search.BookSuggester;
+import com.jencys.books.service.BookService;
+import com.jencys.books.snapshot.BookSnapshot;
+import com.jencys.books.util.Isbn;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only {@link BookService} over a memory-mapped {@link BookSnapshot} ({@code books.snapshot.enabled}).
+ * No read touches Hibernate or the database. A replaced snapshot file is mapped and swapped in atomically;
+ * requests already running finish on the snapshot they started with.
+ */
+@Slf4j
+@Service
+@Timed("books.service")
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "true")
+public class SnapshotBookServiceImpl implements BookService {
+    private static final Set<BookField> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
+    private final BookMapper bookMapper;
+    private final BooksProperties booksProperties;
+    private final AtomicReference<BookSnapshot> snapshot = new AtomicReference<>();
+    // built off the request path from the snapshot it was read from, then never modified
+    private final AtomicReference<BookSuggester> suggester = new AtomicReference<>();
+    private ScheduledExecutorService executor;
+
+    public SnapshotBookServiceImpl(BookMapper bookMapper, BooksProperties booksProperties) {
+        this.bookMapper = bookMapper;
+        this.booksProperties = booksProperties;
+    }
+
+    // mapping is lazy, so startup costs a header read however large the catalogue is
+    @PostConstruct
+    public void start() throws IOException {
+        BooksProperties.Snapshot config = booksProperties.getSnapshot();
+        BookSnapshot opened = BookSnapshot.open(config.getPath());
+        snapshot.set(opened);
+        log.info("Serving {} books from snapshot {} created at {}", opened.size(), config.getPath(),
+                opened.createdAt());
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "books-snapshot-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getReloadInterval().toMillis();
+        executor.execute(this::indexSuggestions);
+        executor.scheduleWithFixedDelay(this::reload, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // the old mapping is released once no request holds it any more
+    void reloadIfChanged() throws IOException {
+        if (snapshot.get().isCurrent()) {
+            return;
+        }
+        BookSnapshot replacement = BookSnapshot.open(booksProperties.getSnapshot().getPath());
+        snapshot.set(replacement);
+        log.info("Swapped in snapshot of {} books created at {}", replacement.size(), replacement.createdAt());
+        indexSuggestions();
+    }
+
+    // reads every title and author, so the first suggestions wait for this rather than the startup
+    void indexSuggestions() {
+        BookSnapshot books = snapshot.get();
+        Set<BookField> fields = EnumSet.of(BookField.ID, BookField.TITLE, BookField.AUTHOR);
+        BookSuggester built = new BookSuggester();
+        for (int row = 0; row < books.size(); row++) {
+            BookView book = books.view(row, fields);
+            built.put(book.id(), book.title(), book.author());
+        }
+        suggester.set(built);
+    }
+
+    public BookDTO createBook(BookDTO bookDTO) {
+        throw readOnly();
+    }
+
+    public BookDTO getBook(Long id) {
+        BookSnapshot books = snapshot.get();
+        int row = books.find(id);
+        if (row < 0) {
+            throw new BookNotFoundException("Book not found with id: " + id);
+        }
+        return bookMapper.toDTO(books.view(row, ALL_FIELDS));
+    }
+
+    // a binary search of the snapshot's ISBN index, which holds the ISBNs as stored
+    public BookDTO getBookByIsbn(String isbn) {
+        String canonical = Isbn.normalise(isbn);
+        if (canonical == null) {
+            throw new InvalidIsbnException("Not a valid ISBN-10 or ISBN-13: " + isbn);
+        }
+        BookSnapshot books = snapshot.get();
+        int row = books.findIsbn(canonical);
+        if (row < 0) {
+            throw new BookNotFoundException("Book not found with ISBN: " + isbn);
+        }
+        return bookMapper.toDTO(books.view(row, ALL_FIELDS));
+    }
+
+    public BookBatchDTO getBooks(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new BookBatchDTO(List.of(), List.of());
+        }
+        int maxIds = booksProperties.getBulk().getMaxIds();
+        if (ids.size() > maxIds) {
+            throw new InvalidBatchException("At most " + maxIds + " ids can be requested at once");
+        }
+        // List.of and other immutable lists throw on contains(null)
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidBatchException("Ids must not be null");
+        }
+
+        BookSnapshot books = snapshot.get();
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        List<BookDTO> found = new ArrayList<>(requested.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            int row = books.find(id);
+            if (row < 0) {
+                missingIds.add(id);
+            } else {
+                found.add(bookMapper.toDTO(books.view(row, ALL_FIELDS)));
+            }
+        }
+        return new BookBatchDTO(found, missingIds);
+    }
+
+    public BookPageDTO getAllBooks(Long afterId, Integer size, String fields) {
+        Set<BookField> selected = BookField.parse(fields);
+        BookSnapshot books = snapshot.get();
+        int from = books.firstAfter(afterId == null ? 0L : afterId);
+        int to = Math.min(from + resolvePageSize(size), books.size());
+
+        List<BookDTO> content = new ArrayList<>(Math.max(to - from, 0));
+        for (int row = from; row < to; row++) {
+            content.add(bookMapper.toDTO(books.view(row, selected)));
+        }
+        Long nextCursor = to < books.size() ? books.id(to - 1) : null;
+        return new BookPageDTO(content, nextCursor);
+    }
+
+    public void streamAllBooks(String fields, Consumer<BookDTO> consumer) {
+        Set<BookField> selected = BookField.parse(fields);
+        BookSnapshot books = snapshot.get();
+        for (int row = 0; row < books.size(); row++) {
+            consumer.accept(bookMapper.toDTO(books.view(row, selected)));
+        }
+    }
+
+    public BookDTO updateBook(Long id, BookDTO bookDTO) {
+        throw readOnly();
+    }
+
+    public void deleteBook(Long id) {
+        throw readOnly();
+    }
+
+    public void searchBooksByAuthor(String author, String fields, Consumer<BookDTO> consumer) {
+        BookSnapshot books = snapshot.get();
+        String term = nullIfBlank(author);
+        scan(books, row -> term == null || books.authorContains(row, term), fields, consumer);
+    }
+
+    public void searchBooksByTitle(String title, String fields, Consumer<BookDTO> consumer) {
+        BookSnapshot books = snapshot.get();
+        String term = nullIfBlank(title);
+        scan(books, row -> term == null || books.titleContains(row, term), fields, consumer);
+    }
+
+    /**
+     * The same search as {@link BookServiceImpl#searchBooks}, cursors included, evaluated over the snapshot.
+     * Only the page being built is held in memory: a bounded heap keeps the first {@code size + 1} matches
+     * in sort order.
+     */
+    public BookSearchPageDTO searchBooks(BookSearchCriteria criteria) {
+        int pageSize = resolvePageSize(criteria.getSize());
+        BookSearchSort sort = BookSearchSort.from(criteria.getSort());
+        boolean ascending = BookSearchSort.direction(criteria.getOrder()).isAscending();
+        Set<BookField> fields = BookField.parse(criteria.getFields());
+        fields.add(sort.field());
+
+        BookSnapshot books = snapshot.get();
+        IntPredicate matches = searchPredicate(books, criteria);
+        Set<BookField> sortFields = EnumSet.of(BookField.ID, sort.field());
+        Predicate<BookView> after = criteria.getAfter() == null || criteria.getAfter().isBlank()
+                ? book -> true
+                : sort.isAfter(criteria.getAfter(), ascending);
+        Comparator<Ranked> order = Comparator.comparing(Ranked::book, sort.comparator(ascending));
+        PriorityQueue<Ranked> page = new PriorityQueue<>(pageSize + 1, order.reversed());
+
+        // an ISBN prefix narrows the scan to a range of the ISBN index, whose ISBNs have no hyphens
+        String isbnPrefix = criteria.getIsbnPrefix() == null ? null : Isbn.stripSeparators(criteria.getIsbnPrefix());
+        if (isbnPrefix != null && isbnPrefix.isEmpty()) {
+            isbnPrefix = null;
+        }
+        int[] range = isbnPrefix == null ? new int[]{0, books.size()} : books.isbnPrefixRange(isbnPrefix);
+        for (int i = range[0]; i < range[1]; i++) {
+            int row = isbnPrefix == null ? i : books.isbnRow(i);
+            if (!matches.test(row)) {
+                continue;
+            }
+            Ranked ranked = new Ranked(row, books.view(row, sortFields));
+            if (!after.test(ranked.book())) {
+                continue;
+            }
+            page.add(ranked);
+            if (page.size() > pageSize + 1) {
+                page.poll();
+            }
+        }
+
+        List<Ranked> ranked = new ArrayList<>(page);
+        ranked.sort(order);
+        List<BookDTO> content = ranked.stream()
+                .limit(pageSize)
+                .map(entry -> bookMapper.toDTO(books.view(entry.row(), fields)))
+                .collect(Collectors.toList());
+        String nextCursor = ranked.size() > pageSize
+                ? sort.cursor(books.view(ranked.get(pageSize - 1).row(), fields))
+                : null;
+        return new BookSearchPageDTO(content, nextCursor);
+    }
+
+    // empty until the suggestions of the first snapshot are built
+    public List<BookSuggestionDTO> suggest(String query, Integer limit) {
+        BookSuggester current = suggester.get();
+        if (current == null) {
+            return List.of();
+        }
+        return current.suggest(query, resolveSuggestLimit(limit), booksProperties.getSuggest().getMaxEdits());
+    }
+
+    public String getCatalogueVersion() {
+        return "snapshot-" + Long.toString(snapshot.get().createdAt().toEpochMilli(), 36);
+    }
+
+    private void scan(BookSnapshot books, IntPredicate matches, String fields, Consumer<BookDTO> consumer) {
+        Set<BookField> selected = BookField.parse(fields);
+        for (int row = 0; row < books.size(); row++) {
+            if (matches.test(row)) {
+                consumer.accept(bookMapper.toDTO(books.view(row, selected)));
+            }
+        }
+    }
+
+    private static IntPredicate searchPredicate(BookSnapshot books, BookSearchCriteria criteria) {
+        String author = nullIfBlank(criteria.getAuthor());
+        String title = nullIfBlank(criteria.getTitle());
+        Integer yearFrom = criteria.getYearFrom();
+        Integer yearTo = criteria.getYearTo();
+        return row -> {
+            if (yearFrom != null || yearTo != null) {
+                Integer year = books.publicationYear(row);
+                if (year == null || (yearFrom != null && year < yearFrom) || (yearTo != null && year > yearTo)) {
+                    return false;
+                }
+            }
+            return (author == null || books.authorContains(row, author))
+                    && (title == null || books.titleContains(row, title));
+        };
+    }
+
+    // matched as given, like the LIKE patterns of BookSpecifications
+    private static String nullIfBlank(String term) {
+        return term == null || term.isBlank() ? null : term;
+    }
+
+    private static ReadOnlyCatalogueException readOnly() {
+        return new ReadOnlyCatalogueException("This node serves a read-only catalogue snapshot");
+    }
+
+    private int resolvePageSize(Integer size) {
+        BooksProperties.Pagination pagination = booksProperties.getPagination();
+        if (size == null || size < 1) {
+            return pagination.getDefaultSize();
+        }
+        return Math.min(size, pagination.getMaxSize());
+    }
+
+    private int resolveSuggestLimit(Integer limit) {
+        BooksProperties.Suggest suggest = booksProperties.getSuggest();
+        if (limit == null || limit < 1) {
+            return suggest.getDefaultLimit();
+        }
+        return Math.min(limit, suggest.getMaxLimit());
+    }
+
+    private void reload() {
+        try {
+            reloadIfChanged();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load the replaced snapshot, still serving the previous one", e);
+        }
+    }
+
+    private record Ranked(int row, BookView book) {
+    }
+}
@@ -0,0 +1,279 @@
+package com.jencys.books.snapshot;
+
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookView;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A read-only, memory-mapped catalogue written by {@link BookSnapshotWriter}. Rows are ordered by id and
+ * read straight from the mapping, so an open snapshot costs no heap beyond this object and a lookup
+ * allocates only the values it returns. Safe for concurrent readers.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header    magic, format version, row count (int each), reserved int, created-at millis, heap offset (long)
+ * ids       long per row, ascending
+ * years     int per row
+ * versions  long per row
+ * strings   per row, (offset, length) ints into the heap for title, author, isbn and description;
+ *           a length of -1 is null
+ * isbns     int row numbers ordered by ISBN
+ * heap      UTF-8 bytes
+ * </pre>
+ */
+public final class BookSnapshot {
+    static final int MAGIC = 0x424B5331; // "BKS1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int STRING_COLUMNS = 4;
+    static final int STRING_REF_SIZE = 8;
+    static final int NULL_YEAR = Integer.MIN_VALUE;
+    static final long NULL_VERSION = Long.MIN_VALUE;
+
+    static final int TITLE = 0;
+    static final int AUTHOR = 1;
+    static final int ISBN = 2;
+    static final int DESCRIPTION = 3;
+
+    private final Path path;
+    private final Object fileKey;
+    private final Instant lastModified;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final Instant createdAt;
+    private final int idsOffset;
+    private final int yearsOffset;
+    private final int versionsOffset;
+    private final int stringsOffset;
+    private final int isbnsOffset;
+    private final int heapOffset;
+
+    private BookSnapshot(Path path, BasicFileAttributes attributes, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.fileKey = attributes.fileKey();
+        this.lastModified = attributes.lastModifiedTime().toInstant();
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a book snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(path + " has snapshot format " + buffer.getInt(4) + ", expected " + FORMAT_VERSION);
+        }
+        this.size = buffer.getInt(8);
+        this.createdAt = Instant.ofEpochMilli(buffer.getLong(16));
+        this.idsOffset = HEADER_SIZE;
+        this.yearsOffset = idsOffset + Long.BYTES * size;
+        this.versionsOffset = yearsOffset + Integer.BYTES * size;
+        this.stringsOffset = versionsOffset + Long.BYTES * size;
+        this.isbnsOffset = stringsOffset + STRING_COLUMNS * STRING_REF_SIZE * size;
+        this.heapOffset = (int) buffer.getLong(24);
+        if (heapOffset != isbnsOffset + Integer.BYTES * size || heapOffset > buffer.capacity()) {
+            throw new IOException(path + " is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Maps the snapshot at {@code path}. The file can be replaced afterwards: the mapping keeps the contents
+     * it was opened with.
+     */
+    public static BookSnapshot open(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than a single mapping");
+            }
+            return new BookSnapshot(path, attributes, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Whether {@code path} still holds the file this snapshot was opened from; a snapshot published with an
+     * atomic move is a different file.
+     */
+    public boolean isCurrent() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return Objects.equals(fileKey, attributes.fileKey())
+                && lastModified.equals(attributes.lastModifiedTime().toInstant());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    public long id(int row) {
+        return buffer.getLong(idsOffset + Long.BYTES * row);
+    }
+
+    /**
+     * The row holding {@code id}, or {@code -(insertion point) - 1} as {@link java.util.Arrays#binarySearch}.
+     */
+    public int find(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = id(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // the first row whose id is greater than id
+    public int firstAfter(long id) {
+        int row = find(id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    public Integer publicationYear(int row) {
+        int year = buffer.getInt(yearsOffset + Integer.BYTES * row);
+        return year == NULL_YEAR ? null : year;
+    }
+
+    public String title(int row) {
+        return string(row, TITLE);
+    }
+
+    public String author(int row) {
+        return string(row, AUTHOR);
+    }
+
+    public String isbn(int row) {
+        return string(row, ISBN);
+    }
+
+    public BookView view(int row, Set<BookField> fields) {
+        long version = buffer.getLong(versionsOffset + Long.BYTES * row);
+        return new BookView(
+                id(row),
+                fields.contains(BookField.TITLE) ? title(row) : null,
+                fields.contains(BookField.AUTHOR) ? author(row) : null,
+                fields.contains(BookField.ISBN) ? isbn(row) : null,
+                fields.contains(BookField.PUBLICATION_YEAR) ? publicationYear(row) : null,
+                fields.contains(BookField.DESCRIPTION) ? string(row, DESCRIPTION) : null,
+                fields.contains(BookField.VERSION) && version != NULL_VERSION ? version : null);
+    }
+
+    public boolean titleContains(int row, String term) {
+        return containsIgnoreCase(row, TITLE, term);
+    }
+
+    public boolean authorContains(int row, String term) {
+        return containsIgnoreCase(row, AUTHOR, term);
+    }
+
+    /**
+     * Positions {@code [from, to)} in the ISBN index of the ISBNs starting with {@code prefix}; the row of
+     * a position is {@link #isbnRow}.
+     */
+    public int[] isbnPrefixRange(String prefix) {
+        int from = isbnLowerBound(prefix);
+        int to = from;
+        while (to < size && isbnAt(to).startsWith(prefix)) {
+            to++;
+        }
+        return new int[]{from, to};
+    }
+
+    // the row whose ISBN is exactly isbn, or -1
+    public int findIsbn(String isbn) {
+        int position = isbnLowerBound(isbn);
+        return position < size && isbnAt(position).equals(isbn) ? isbnRow(position) : -1;
+    }
+
+    public int isbnRow(int position) {
+        return buffer.getInt(isbnsOffset + Integer.BYTES * position);
+    }
+
+    // an ASCII term is matched against the stored bytes without decoding the value
+    private boolean containsIgnoreCase(int row, int column, String term) {
+        int ref = stringRef(row, column);
+        int length = buffer.getInt(ref + Integer.BYTES);
+        if (length < 0) {
+            return false;
+        }
+        if (!isAscii(term)) {
+            return string(row, column).toLowerCase(Locale.ROOT).contains(term.toLowerCase(Locale.ROOT));
+        }
+        int start = heapOffset + buffer.getInt(ref);
+        int last = start + length - term.length();
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < term.length() && toLowerAscii(buffer.get(i + j)) == toLowerAscii((byte) term.charAt(j))) {
+                j++;
+            }
+            if (j == term.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int isbnLowerBound(String isbn) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isbnAt(mid).compareTo(isbn) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // the writer sorts a missing ISBN as an empty one
+    private String isbnAt(int position) {
+        return Objects.toString(isbn(isbnRow(position)), "");
+    }
+
+    private String string(int row, int column) {
+        int ref = stringRef(row, column);
+        int length = buffer.getInt(ref + Integer.BYTES);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(heapOffset + buffer.getInt(ref), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int stringRef(int row, int column) {
+        return stringsOffset + (row * STRING_COLUMNS + column) * STRING_REF_SIZE;
+    }
+
+    private static boolean isAscii(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+}
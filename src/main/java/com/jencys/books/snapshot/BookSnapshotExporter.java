@@ -0,0 +1,50 @@
+package com.jencys.books.snapshot;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookSnapshotDTO;
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.repository.BookViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+
+/**
+ * Exports the catalogue to {@code books.snapshot.path} for nodes running the {@code snapshot} profile.
+ * Only present where the database is the source of truth.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookSnapshotExporter {
+    private final BookViewRepository bookViewRepository;
+    private final BooksProperties booksProperties;
+
+    public BookSnapshotExporter(BookViewRepository bookViewRepository, BooksProperties booksProperties) {
+        this.bookViewRepository = bookViewRepository;
+        this.booksProperties = booksProperties;
+    }
+
+    // one streamed read in id order, the order the snapshot stores rows in
+    @Transactional(readOnly = true)
+    public BookSnapshotDTO export() {
+        Path path = booksProperties.getSnapshot().getPath();
+        Instant createdAt = Instant.now();
+        try (Stream<BookView> books = bookViewRepository.streamAll(EnumSet.allOf(BookField.class))) {
+            int count = BookSnapshotWriter.write(path, books.iterator(), createdAt);
+            log.info("Exported {} books to snapshot {}", count, path);
+            return new BookSnapshotDTO(path.toString(), count, Files.size(path), createdAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export snapshot to " + path, e);
+        }
+    }
+}
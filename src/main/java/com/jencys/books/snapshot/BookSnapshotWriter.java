@@ -0,0 +1,152 @@
+package com.jencys.books.snapshot;
+
+import com.jencys.books.repository.BookView;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import static com.jencys.books.snapshot.BookSnapshot.AUTHOR;
+import static com.jencys.books.snapshot.BookSnapshot.DESCRIPTION;
+import static com.jencys.books.snapshot.BookSnapshot.ISBN;
+import static com.jencys.books.snapshot.BookSnapshot.STRING_COLUMNS;
+import static com.jencys.books.snapshot.BookSnapshot.TITLE;
+
+/**
+ * Writes the {@link BookSnapshot} format. Books must arrive in ascending id order. String values are
+ * spooled to a scratch file as they arrive, so only the fixed-width columns and the ISBNs are held in
+ * memory while writing.
+ */
+public final class BookSnapshotWriter {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private BookSnapshotWriter() {
+    }
+
+    /**
+     * Writes {@code books} to a temporary file next to {@code target} and moves it into place atomically,
+     * so readers see either the previous snapshot or the complete new one.
+     *
+     * @return the number of books written
+     */
+    public static int write(Path target, Iterator<BookView> books, Instant createdAt) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path heap = Files.createTempFile(directory, target.getFileName().toString(), ".heap");
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            Columns columns = new Columns();
+            try (OutputStream heapOut = new BufferedOutputStream(Files.newOutputStream(heap))) {
+                while (books.hasNext()) {
+                    columns.add(books.next(), heapOut);
+                }
+            }
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+                columns.writeTo(out, createdAt);
+                Files.copy(heap, out);
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return columns.size;
+        } finally {
+            Files.deleteIfExists(heap);
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static final class Columns {
+        private int size;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] years = new int[INITIAL_CAPACITY];
+        private long[] versions = new long[INITIAL_CAPACITY];
+        private int[] strings = new int[INITIAL_CAPACITY * STRING_COLUMNS * 2];
+        private String[] isbns = new String[INITIAL_CAPACITY];
+        private long heapSize;
+
+        private void add(BookView book, OutputStream heap) throws IOException {
+            if (size > 0 && book.id() <= ids[size - 1]) {
+                throw new IllegalArgumentException("Books must be written in ascending id order, got "
+                        + book.id() + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                years = Arrays.copyOf(years, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                strings = Arrays.copyOf(strings, capacity * STRING_COLUMNS * 2);
+                isbns = Arrays.copyOf(isbns, capacity);
+            }
+            ids[size] = book.id();
+            years[size] = book.publicationYear() == null ? BookSnapshot.NULL_YEAR : book.publicationYear();
+            versions[size] = book.version() == null ? BookSnapshot.NULL_VERSION : book.version();
+            isbns[size] = book.isbn() == null ? "" : book.isbn();
+            addString(TITLE, book.title(), heap);
+            addString(AUTHOR, book.author(), heap);
+            addString(ISBN, book.isbn(), heap);
+            addString(DESCRIPTION, book.description(), heap);
+            size++;
+        }
+
+        private void addString(int column, String value, OutputStream heap) throws IOException {
+            int ref = (size * STRING_COLUMNS + column) * 2;
+            if (value == null) {
+                strings[ref] = 0;
+                strings[ref + 1] = -1;
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (heapSize + bytes.length > Integer.MAX_VALUE) {
+                throw new IOException("Catalogue is too large for a single snapshot");
+            }
+            strings[ref] = (int) heapSize;
+            strings[ref + 1] = bytes.length;
+            heap.write(bytes);
+            heapSize += bytes.length;
+        }
+
+        private void writeTo(DataOutputStream out, Instant createdAt) throws IOException {
+            long heapOffset = BookSnapshot.HEADER_SIZE
+                    + (long) size * (Long.BYTES + Integer.BYTES + Long.BYTES
+                    + STRING_COLUMNS * BookSnapshot.STRING_REF_SIZE + Integer.BYTES);
+            if (heapOffset + heapSize > Integer.MAX_VALUE) {
+                throw new IOException("Catalogue is too large for a single snapshot");
+            }
+            out.writeInt(BookSnapshot.MAGIC);
+            out.writeInt(BookSnapshot.FORMAT_VERSION);
+            out.writeInt(size);
+            out.writeInt(0);
+            out.writeLong(createdAt.toEpochMilli());
+            out.writeLong(heapOffset);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(ids[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(years[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(versions[i]);
+            }
+            for (int i = 0; i < size * STRING_COLUMNS * 2; i++) {
+                out.writeInt(strings[i]);
+            }
+            Integer[] byIsbn = new Integer[size];
+            Arrays.setAll(byIsbn, i -> i);
+            Arrays.sort(byIsbn, Comparator.comparing((Integer row) -> isbns[row]));
+            for (Integer row : byIsbn) {
+                out.writeInt(row);
+            }
+        }
+    }
+}
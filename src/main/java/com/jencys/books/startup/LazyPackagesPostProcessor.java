@@ -0,0 +1,57 @@
+package com.jencys.books.startup;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+
+import java.util.List;
+
+/**
+ * Marks the beans defined by the given packages lazy, so they are created by their first use rather than at
+ * startup. Unlike {@code spring.main.lazy-initialization} this leaves the request path eager, which would
+ * otherwise be built by the first request instead. Beans with an explicit {@code @Lazy(false)}, and beans
+ * an eager bean depends on, are still created at startup.
+ */
+public class LazyPackagesPostProcessor implements BeanFactoryPostProcessor {
+    private final List<String> packages;
+
+    public LazyPackagesPostProcessor(List<String> packages) {
+        this.packages = packages.stream()
+                .map(name -> name.endsWith(".") ? name : name + ".")
+                .toList();
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition instanceof AbstractBeanDefinition bean && bean.getLazyInit() == null
+                    && definedInPackages(beanFactory, bean)) {
+                bean.setLazyInit(true);
+            }
+        }
+    }
+
+    // @Bean methods are attributed to their configuration class, whatever type they return
+    private boolean definedInPackages(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        String factoryBean = definition.getFactoryBeanName();
+        if (factoryBean != null && beanFactory.containsBeanDefinition(factoryBean)) {
+            className = beanFactory.getBeanDefinition(factoryBean).getBeanClassName();
+        }
+        if (className == null) {
+            Class<?> type = definition.getResolvableType().resolve();
+            className = type != null ? type.getName() : null;
+        }
+        if (className == null) {
+            return false;
+        }
+        for (String prefix : packages) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package com.jencys.books.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookSpecifications;
+import com.jencys.books.repository.BookViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Looks up a missing book and serialises an empty one once every bean exists, before the web server starts.
+ * The first {@code GET /api/books/{id}} routed to a new instance then finds Hibernate's entity loader, the
+ * lookup's criteria query and Jackson's {@link BookDTO} serializer already built and their classes loaded.
+ * The lookup runs the book service's query on the repositories directly, so it records no service call and
+ * no cache miss in the metrics.
+ * Running during the context refresh also puts those classes in the CDS archive, whose training run stops
+ * once the refresh is done. A failure is logged and leaves the work to the first request.
+ */
+@Slf4j
+public class ReadPathWarmUp implements SmartInitializingSingleton {
+    // ids start at 1, so the lookups miss
+    static final long MISSING_ID = 0;
+
+    private final BookRepository bookRepository;
+    private final BookViewRepository bookViewRepository;
+    private final PrimaryReads primaryReads;
+    private final ObjectMapper objectMapper;
+
+    public ReadPathWarmUp(BookRepository bookRepository, BookViewRepository bookViewRepository,
+                          PrimaryReads primaryReads, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.bookViewRepository = bookViewRepository;
+        this.primaryReads = primaryReads;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long started = System.nanoTime();
+        try {
+            bookRepository.findById(MISSING_ID);
+            // the query and transaction the service loads a book with
+            primaryReads.read(() -> bookViewRepository.findAll(BookSpecifications.idIn(List.of(MISSING_ID)),
+                    EnumSet.allOf(BookField.class), Sort.unsorted(), Limit.of(1)));
+            objectMapper.writeValueAsBytes(new BookDTO());
+        } catch (Exception e) {
+            log.warn("Could not warm up the book lookup, the first request will", e);
+            return;
+        }
+        log.info("Warmed up the book lookup in {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+}
@@ -0,0 +1,33 @@
+package com.jencys.books.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookViewRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Startup-optimised boot ({@code books.startup.enabled}, set by the {@code startup} profile): the API docs
+ * are built by their first request rather than by every new instance, and the book lookup is warmed up
+ * before the instance takes traffic.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "books.startup", name = "enabled", havingValue = "true")
+public class StartupConfig {
+
+    // static: a bean factory post-processor must not need the configuration instance
+    @Bean
+    public static LazyPackagesPostProcessor lazyApiDocsPostProcessor() {
+        return new LazyPackagesPostProcessor(List.of("org.springdoc"));
+    }
+
+    @Bean
+    public ReadPathWarmUp readPathWarmUp(BookRepository bookRepository, BookViewRepository bookViewRepository,
+                                         PrimaryReads primaryReads, ObjectMapper objectMapper) {
+        return new ReadPathWarmUp(bookRepository, bookViewRepository, primaryReads, objectMapper);
+    }
+}
@@ -0,0 +1,251 @@
+package com.jencys.books.stats;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.AuthorCountDTO;
+import com.jencys.books.dto.CatalogueStatsDTO;
+import com.jencys.books.dto.YearCountDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookAuthorCountProjection;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookYearCountProjection;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Catalogue counts per author and per publication year, kept in memory so reports never read the books
+ * themselves. The counts are loaded with GROUP BY queries and then adjusted by every write on this node.
+ * Writes made by other nodes are picked up by the next periodic recount ({@code books.stats.refresh-interval}).
+ * A recount replaces the counts outright: a write racing it may or may not be in the GROUP BY result, and
+ * replaying it on top could count it twice, so until the following recount it can be missing instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "books.snapshot", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class BookStats implements MeterBinder {
+    private static final Comparator<AuthorCountDTO> MOST_BOOKS_FIRST = Comparator
+            .comparingLong(AuthorCountDTO::getBooks).reversed()
+            .thenComparing(AuthorCountDTO::getAuthor);
+
+    private final BookRepository bookRepository;
+    private final BooksProperties booksProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Counts counts = new Counts();
+    private volatile boolean ready;
+    private ScheduledExecutorService executor;
+
+    public BookStats(BookRepository bookRepository, BooksProperties booksProperties) {
+        this.bookRepository = bookRepository;
+        this.booksProperties = booksProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "books-stats-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = booksProperties.getStats().getRefreshInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::rebuild, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // synchronized: the startup count and a periodic one must not publish out of order
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Counts recounted;
+        try {
+            recounted = count();
+        } catch (RuntimeException e) {
+            log.error("Could not count books for the catalogue stats", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            counts = recounted;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Catalogue stats recounted: {} books by {} authors", recounted.total, recounted.authors.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(Book book) {
+        String author = book.getAuthor();
+        Integer year = book.getPublicationYear();
+        apply(() -> counts.adjust(author, year, 1));
+    }
+
+    public void update(String previousAuthor, Integer previousYear, Book book) {
+        String author = book.getAuthor();
+        Integer year = book.getPublicationYear();
+        if (Objects.equals(author, previousAuthor) && Objects.equals(year, previousYear)) {
+            return;
+        }
+        apply(() -> {
+            counts.adjust(previousAuthor, previousYear, -1);
+            counts.adjust(author, year, 1);
+        });
+    }
+
+    public void remove(String author, Integer year) {
+        apply(() -> counts.adjust(author, year, -1));
+    }
+
+    public CatalogueStatsDTO summary() {
+        return read(current -> new CatalogueStatsDTO(current.total, current.authors.size(),
+                current.years.isEmpty() ? null : current.years.firstKey(),
+                current.years.isEmpty() ? null : current.years.lastKey()));
+    }
+
+    /**
+     * The {@code limit} authors with most books, ties by name. The ranking is sorted once per change to the
+     * counts, not per request.
+     */
+    public List<AuthorCountDTO> topAuthors(int limit) {
+        return read(current -> {
+            List<AuthorCountDTO> ranking = current.ranking;
+            if (ranking == null) {
+                ranking = new ArrayList<>(current.authors.size());
+                for (Map.Entry<String, Long> entry : current.authors.entrySet()) {
+                    ranking.add(new AuthorCountDTO(entry.getKey(), entry.getValue()));
+                }
+                ranking.sort(MOST_BOOKS_FIRST);
+                // racing readers sort the same counts, so whichever publishes last is as good
+                current.ranking = ranking;
+            }
+            return List.copyOf(ranking.subList(0, Math.min(limit, ranking.size())));
+        });
+    }
+
+    /**
+     * Books per span of {@code width} publication years, aligned to multiples of the width (decades for 10),
+     * oldest first. Spans without books are left out.
+     */
+    public List<YearCountDTO> yearHistogram(int width) {
+        return read(current -> {
+            List<YearCountDTO> histogram = new ArrayList<>();
+            YearCountDTO bucket = null;
+            for (Map.Entry<Integer, Long> entry : current.years.entrySet()) {
+                int from = Math.floorDiv(entry.getKey(), width) * width;
+                if (bucket == null || bucket.getFrom() != from) {
+                    bucket = new YearCountDTO(from, from + width - 1, 0);
+                    histogram.add(bucket);
+                }
+                bucket.setBooks(bucket.getBooks() + entry.getValue());
+            }
+            return histogram;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.stats.books", this, BookStats::total)
+                .description("Books in the catalogue according to the in-memory stats")
+                .register(registry);
+    }
+
+    private long total() {
+        lock.readLock().lock();
+        try {
+            return counts.total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // until the first count is loaded every read runs the GROUP BY queries itself
+    private <T> T read(Function<Counts, T> reader) {
+        if (!ready) {
+            return reader.apply(count());
+        }
+        lock.readLock().lock();
+        try {
+            return reader.apply(counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Counts count() {
+        Counts recounted = new Counts();
+        for (BookAuthorCountProjection row : bookRepository.countByAuthor()) {
+            if (row.getAuthor() != null) {
+                recounted.authors.put(row.getAuthor(), row.getBooks());
+            }
+            recounted.total += row.getBooks();
+        }
+        for (BookYearCountProjection row : bookRepository.countByPublicationYear()) {
+            if (row.getPublicationYear() != null) {
+                recounted.years.put(row.getPublicationYear(), row.getBooks());
+            }
+        }
+        return recounted;
+    }
+
+    private void apply(Runnable adjustment) {
+        lock.writeLock().lock();
+        try {
+            adjustment.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Counts {
+        private final Map<String, Long> authors = new HashMap<>();
+        private final TreeMap<Integer, Long> years = new TreeMap<>();
+        private long total;
+        // authors sorted by count, dropped whenever a count changes
+        private volatile List<AuthorCountDTO> ranking;
+
+        private void adjust(String author, Integer year, long delta) {
+            if (author != null) {
+                authors.compute(author, (key, current) -> add(current, delta));
+            }
+            if (year != null) {
+                years.compute(year, (key, current) -> add(current, delta));
+            }
+            total = Math.max(total + delta, 0);
+            ranking = null;
+        }
+
+        // a count dropping to zero removes the key, so authors and years without books are not reported
+        private static Long add(Long current, long delta) {
+            long sum = (current == null ? 0 : current) + delta;
+            return sum > 0 ? sum : null;
+        }
+    }
+}
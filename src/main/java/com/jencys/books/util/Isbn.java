@@ -0,0 +1,126 @@
+package com.jencys.books.util;
+
+import java.util.List;
+
+/**
+ * ISBN canonicalisation. An ISBN-10 or ISBN-13, with or without hyphens and spaces, is reduced to the
+ * thirteen digits of its ISBN-13; one with a wrong check digit is not an ISBN. As a number an ISBN-13 fits
+ * a {@code long}, which is how in-memory indexes key it.
+ */
+public final class Isbn {
+    public static final long INVALID = -1;
+
+    private Isbn() {
+    }
+
+    /**
+     * The ISBN-13 of {@code isbn} as a number, or {@link #INVALID}.
+     */
+    public static long parse(String isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        int[] digits = new int[13];
+        int count = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (count == digits.length) {
+                return INVALID;
+            }
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                // only as the check character of an ISBN-10
+                digits[count++] = 10;
+            } else {
+                return INVALID;
+            }
+        }
+        if (count == 10) {
+            return fromIsbn10(digits);
+        }
+        boolean bookland = digits[0] == 9 && digits[1] == 7 && (digits[2] == 8 || digits[2] == 9);
+        if (count == 13 && bookland && digits[9] != 10) {
+            long value = 0;
+            int sum = 0;
+            for (int i = 0; i < 13; i++) {
+                value = value * 10 + digits[i];
+                sum += i % 2 == 0 ? digits[i] : digits[i] * 3;
+            }
+            return sum % 10 == 0 ? value : INVALID;
+        }
+        return INVALID;
+    }
+
+    /**
+     * The canonical ISBN-13 form of {@code isbn}, or null when it is not a valid ISBN.
+     */
+    public static String normalise(String isbn) {
+        long value = parse(isbn);
+        return value == INVALID ? null : format(value);
+    }
+
+    /**
+     * {@code value} without the hyphens and spaces {@link #parse} skips, e.g. to match a prefix of a stored
+     * ISBN-13.
+     */
+    public static String stripSeparators(String value) {
+        StringBuilder stripped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '-' && c != ' ') {
+                stripped.append(c);
+            }
+        }
+        return stripped.toString();
+    }
+
+    /**
+     * The ways the ISBN-13 {@code isbn13} can be written once hyphens and spaces are stripped: its thirteen
+     * digits and, for a 978 ISBN, its ISBN-10 with either case of check character. Rows stored before ISBNs
+     * were normalised hold any of these.
+     */
+    public static List<String> compactSpellings(long isbn13) {
+        String digits = format(isbn13);
+        if (!digits.startsWith("978")) {
+            return List.of(digits);
+        }
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (digits.charAt(3 + i) - '0') * (10 - i);
+        }
+        int check = (11 - sum % 11) % 11;
+        String isbn10 = digits.substring(3, 12);
+        return check == 10
+                ? List.of(digits, isbn10 + "X", isbn10 + "x")
+                : List.of(digits, isbn10 + check);
+    }
+
+    public static boolean isValid(String isbn) {
+        return parse(isbn) != INVALID;
+    }
+
+    public static String format(long isbn13) {
+        return Long.toString(isbn13);
+    }
+
+    private static long fromIsbn10(int[] digits) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            sum += digits[i] * (10 - i);
+        }
+        if (sum % 11 != 0) {
+            return INVALID;
+        }
+        long value = 978;
+        int sum13 = 9 + 7 * 3 + 8;
+        for (int i = 0; i < 9; i++) {
+            value = value * 10 + digits[i];
+            sum13 += i % 2 == 0 ? digits[i] * 3 : digits[i];
+        }
+        return value * 10 + (10 - sum13 % 10) % 10;
+    }
+}
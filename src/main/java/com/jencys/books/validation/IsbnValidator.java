@@ -0,0 +1,13 @@
+package com.jencys.books.validation;
+
+import com.jencys.books.util.Isbn;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class IsbnValidator implements ConstraintValidator<ValidIsbn, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || value.isBlank() || Isbn.isValid(value);
+    }
+}
@@ -0,0 +1,306 @@
+package com.jencys.books.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.WriteOperationDTO;
+import com.jencys.books.dto.WriteOperationDTO.Status;
+import com.jencys.books.dto.WriteOperationDTO.Type;
+import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.BookVersionMismatchException;
+import com.jencys.books.exception.DuplicateISBNException;
+import com.jencys.books.exception.InvalidIsbnException;
+import com.jencys.books.exception.ReadOnlyCatalogueException;
+import com.jencys.books.exception.WriteOperationNotFoundException;
+import com.jencys.books.exception.WriteQueueFullException;
+import com.jencys.books.service.BookService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind mode ({@code books.write-behind.enabled}). Validated mutations are journaled and
+ * queued, and a single committer thread drains the queue, coalesces operations on the same book and applies
+ * them through {@link BookService} in batched transactions. Outcomes are polled with {@link #status}.
+ */
+@Slf4j
+@Component
+public class BookWriteBehind implements MeterBinder {
+    private static final long MAX_TRACKED_OPERATIONS = 100_000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final BookService bookService;
+    private final TransactionTemplate transactionTemplate;
+    private final BooksProperties.WriteBehind config;
+    private final WriteJournal journal;
+    private final BlockingDeque<BookWriteOperation> queue = new LinkedBlockingDeque<>();
+    private final Cache<String, WriteOperationDTO> statuses;
+    private Thread committer;
+    private volatile boolean running;
+
+    public BookWriteBehind(BookService bookService, TransactionTemplate transactionTemplate,
+                           ObjectMapper objectMapper, BooksProperties booksProperties) {
+        this.bookService = bookService;
+        this.transactionTemplate = transactionTemplate;
+        this.config = booksProperties.getWriteBehind();
+        this.journal = new WriteJournal(config.getJournal(), objectMapper);
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_OPERATIONS)
+                .expireAfterWrite(config.getStatusRetention())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    // runs before the web server accepts requests, so nothing is submitted to an unopened journal
+    @PostConstruct
+    public void start() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        recover();
+        running = true;
+        committer = new Thread(this::run, "books-write-behind");
+        committer.start();
+    }
+
+    // the committer finishes its current batch rather than being interrupted mid-transaction; whatever is
+    // still queued stays in the journal and is replayed on the next start
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        committer.join();
+        journal.close();
+    }
+
+    // queues what the journal holds from before a restart ahead of any new write
+    void recover() throws IOException {
+        List<BookWriteOperation> recovered = journal.open();
+        for (BookWriteOperation operation : recovered) {
+            statuses.put(operation.getId(), pending(operation));
+            queue.add(operation);
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} write-behind operations from {}", recovered.size(), config.getJournal());
+        }
+    }
+
+    /**
+     * Journals and queues a mutation, returning its PENDING status.
+     *
+     * @throws WriteQueueFullException when the queue is at capacity
+     */
+    public WriteOperationDTO submit(Type type, Long bookId, BookDTO book) {
+        BookWriteOperation operation = new BookWriteOperation(UUID.randomUUID().toString(), type, bookId, book);
+        WriteOperationDTO status = pending(operation);
+        // journal order has to be queue order, and the capacity check has to hold until the add
+        synchronized (this) {
+            if (queue.size() >= config.getQueueCapacity()) {
+                throw new WriteQueueFullException("Write queue is full, retry later");
+            }
+            try {
+                journal.append(operation);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal write operation", e);
+            }
+            statuses.put(operation.getId(), status);
+            queue.add(operation);
+        }
+        return status;
+    }
+
+    public WriteOperationDTO status(String operationId) {
+        WriteOperationDTO status = statuses.getIfPresent(operationId);
+        if (status == null) {
+            throw new WriteOperationNotFoundException("Write operation not found with id: " + operationId);
+        }
+        return status;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.write.behind.queue.size", queue, BlockingDeque::size)
+                .description("Accepted writes waiting for the write-behind committer")
+                .register(registry);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                flush(config.getFlushInterval());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind batch failed, retrying in {}", RETRY_DELAY, e);
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits up to {@code wait} for a write, then applies it together with whatever else is queued, up to
+     * the batch size.
+     */
+    void flush(Duration wait) throws InterruptedException {
+        BookWriteOperation first = queue.poll(wait.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        List<BookWriteOperation> batch = new ArrayList<>(config.getBatchSize());
+        batch.add(first);
+        queue.drainTo(batch, config.getBatchSize() - 1);
+        apply(coalesce(batch));
+    }
+
+    /**
+     * Merges later changes to a book into earlier ones, so a burst of edits costs a single write. An update
+     * carrying a version is kept apart because its check has to run against the preceding update, and nothing
+     * is merged into it either, or the check would be skipped. Anything following a delete is kept apart too,
+     * so that it fails the way it would have sequentially.
+     */
+    static List<Slot> coalesce(List<BookWriteOperation> batch) {
+        List<Slot> slots = new ArrayList<>(batch.size());
+        Map<Long, Slot> byBook = new HashMap<>();
+        for (BookWriteOperation operation : batch) {
+            Slot slot = operation.getBookId() == null ? null : byBook.get(operation.getBookId());
+            boolean merge = slot != null && slot.operation().getType() != Type.DELETE
+                    && !versioned(operation) && slot.operations.stream().noneMatch(BookWriteBehind::versioned);
+            if (!merge) {
+                slot = new Slot();
+                slots.add(slot);
+                if (operation.getBookId() != null) {
+                    byBook.put(operation.getBookId(), slot);
+                }
+            }
+            slot.operations.add(operation);
+        }
+        return slots;
+    }
+
+    private void apply(List<Slot> slots) {
+        Long[] bookIds = new Long[slots.size()];
+        try {
+            transactionTemplate.execute(status -> {
+                for (int i = 0; i < slots.size(); i++) {
+                    bookIds[i] = execute(slots.get(i).operation());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            applyIndividually(slots);
+            return;
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            record(slots.get(i), Status.APPLIED, bookIds[i], null);
+        }
+        complete(slots);
+    }
+
+    // one failing operation rolls the whole batch back; replaying one transaction per operation isolates it
+    private void applyIndividually(List<Slot> slots) {
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            try {
+                record(slot, Status.APPLIED, execute(slot.operation()), null);
+            } catch (BookNotFoundException | BookVersionMismatchException | DuplicateISBNException
+                     | InvalidIsbnException | ReadOnlyCatalogueException e) {
+                record(slot, Status.FAILED, slot.operation().getBookId(), e.getMessage());
+            } catch (OptimisticLockingFailureException e) {
+                record(slot, Status.FAILED, slot.operation().getBookId(), "Book was modified concurrently");
+            } catch (DataIntegrityViolationException e) {
+                record(slot, Status.FAILED, slot.operation().getBookId(), "A book with this ISBN already exists");
+            } catch (RuntimeException e) {
+                // not the operation's fault (e.g. the database is down): put the rest back at the head for a retry
+                complete(slots.subList(0, i));
+                List<BookWriteOperation> remaining = new ArrayList<>();
+                slots.subList(i, slots.size()).forEach(rest -> remaining.addAll(rest.operations));
+                for (int j = remaining.size() - 1; j >= 0; j--) {
+                    queue.addFirst(remaining.get(j));
+                }
+                throw e;
+            }
+        }
+        complete(slots);
+    }
+
+    private Long execute(BookWriteOperation operation) {
+        return switch (operation.getType()) {
+            case CREATE -> bookService.createBook(operation.getBook()).getId();
+            case UPDATE -> bookService.updateBook(operation.getBookId(), operation.getBook()).getId();
+            case DELETE -> {
+                bookService.deleteBook(operation.getBookId());
+                yield operation.getBookId();
+            }
+        };
+    }
+
+    private void record(Slot slot, Status status, Long bookId, String message) {
+        for (BookWriteOperation operation : slot.operations) {
+            statuses.put(operation.getId(),
+                    new WriteOperationDTO(operation.getId(), operation.getType(), status, bookId, message));
+        }
+    }
+
+    private void complete(List<Slot> slots) {
+        List<String> operationIds = new ArrayList<>();
+        slots.forEach(slot -> slot.operations.forEach(operation -> operationIds.add(operation.getId())));
+        try {
+            journal.complete(operationIds);
+        } catch (IOException e) {
+            // the writes are committed, but would be applied again if the process restarted now
+            log.error("Could not record completion of {} write-behind operations", operationIds.size(), e);
+        }
+    }
+
+    private static boolean versioned(BookWriteOperation operation) {
+        return operation.getType() != Type.DELETE && operation.getBook().getVersion() != null;
+    }
+
+    private static WriteOperationDTO pending(BookWriteOperation operation) {
+        return new WriteOperationDTO(operation.getId(), operation.getType(), Status.PENDING,
+                operation.getBookId(), null);
+    }
+
+    // operations on one book that are applied as one: the last of them, whose outcome they all share
+    static final class Slot {
+        private final List<BookWriteOperation> operations = new ArrayList<>();
+
+        BookWriteOperation operation() {
+            return operations.get(operations.size() - 1);
+        }
+
+        List<BookWriteOperation> operations() {
+            return operations;
+        }
+    }
+}
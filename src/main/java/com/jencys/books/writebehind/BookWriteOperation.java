@@ -0,0 +1,21 @@
+package com.jencys.books.writebehind;
+
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.WriteOperationDTO.Type;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A validated mutation waiting in the write-behind queue. {@code bookId} is null for creates and
+ * {@code book} is null for deletes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookWriteOperation {
+    private String id;
+    private Type type;
+    private Long bookId;
+    private BookDTO book;
+}
@@ -0,0 +1,141 @@
+package com.jencys.books.writebehind;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only NDJSON log of accepted write-behind operations and of their completion. An operation is forced
+ * to disk before it is acknowledged, so everything accepted but not yet committed is replayed after a restart.
+ */
+@Slf4j
+class WriteJournal implements Closeable {
+    private final Path path;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    private FileChannel channel;
+    private int outstanding;
+
+    WriteJournal(Path path, ObjectMapper objectMapper) {
+        this.path = path.toAbsolutePath();
+        this.writer = objectMapper.writerFor(Entry.class);
+        this.reader = objectMapper.readerFor(Entry.class);
+    }
+
+    /**
+     * Opens the journal and returns the operations that were accepted but never completed, in acceptance
+     * order. The file is rewritten to hold only those.
+     */
+    synchronized List<BookWriteOperation> open() throws IOException {
+        Map<String, BookWriteOperation> pending = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            try (BufferedReader in = Files.newBufferedReader(path)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        read(line, pending);
+                    }
+                }
+            }
+        } else {
+            Files.createDirectories(path.getParent());
+        }
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(compacted)) {
+            for (BookWriteOperation operation : pending.values()) {
+                out.write(writer.writeValueAsString(new Entry(operation, null)));
+                out.newLine();
+            }
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        outstanding = pending.size();
+        return new ArrayList<>(pending.values());
+    }
+
+    synchronized void append(BookWriteOperation operation) throws IOException {
+        write(new Entry(operation, null));
+        channel.force(false);
+        outstanding++;
+    }
+
+    // once nothing is outstanding the whole log is obsolete, so it is truncated instead of growing forever
+    synchronized void complete(Collection<String> operationIds) throws IOException {
+        if (operationIds.isEmpty()) {
+            return;
+        }
+        outstanding -= operationIds.size();
+        if (outstanding == 0) {
+            channel.truncate(0);
+        } else {
+            for (String operationId : operationIds) {
+                write(new Entry(null, operationId));
+            }
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void read(String line, Map<String, BookWriteOperation> pending) {
+        try {
+            Entry entry = reader.readValue(line);
+            if (entry.getOperation() != null) {
+                pending.put(entry.getOperation().getId(), entry.getOperation());
+            } else if (entry.getCompleted() != null) {
+                pending.remove(entry.getCompleted());
+            }
+        } catch (JsonProcessingException e) {
+            // a line torn by a crash mid-append was never acknowledged
+            log.warn("Skipping unreadable write-behind journal entry in {}", path, e);
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        byte[] line = (writer.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Entry {
+        private BookWriteOperation operation;
+        private String completed;
+    }
+}
@@ -0,0 +1,42 @@
+package com.jencys.books;
+
+import com.jencys.books.service.BookImportService;
+import com.jencys.books.snapshot.BookSnapshotWriter;
+import com.jencys.books.stats.BookStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"books.snapshot.enabled=true", "books.cluster.enabled=true"})
+class SnapshotApplicationTests {
+
+    @TempDir
+    static Path tempDir;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @DynamicPropertySource
+    static void snapshot(DynamicPropertyRegistry registry) throws Exception {
+        Path path = tempDir.resolve("books.snapshot");
+        BookSnapshotWriter.write(path, Collections.emptyIterator(), Instant.now());
+        registry.add("books.snapshot.path", path::toString);
+    }
+
+    // a read-only node neither imports nor rebuilds anything from the database
+    @Test
+    void contextLoads_WithoutDatabaseBackedBeans() {
+        assertTrue(context.getBeanProvider(BookImportService.class).stream().findAny().isEmpty());
+        assertTrue(context.getBeanProvider(BookStats.class).stream().findAny().isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package com.jencys.books.cache;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCacheTest {
+
+    private BookCache bookCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        bookCache = new BookCache(new BooksProperties());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_CachesLoadedValue() {
+        bookCache.get(1L, this::load);
+        BookDTO result = bookCache.get(1L, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals("v1", result.getTitle());
+        assertEquals(1, bookCache.stats().hitCount());
+        assertEquals(1, bookCache.stats().missCount());
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        bookCache.get(1L, this::load);
+
+        bookCache.invalidate(1L);
+        BookDTO result = bookCache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals("v2", result.getTitle());
+    }
+
+    @Test
+    void get_InvalidatedWhileLoading_DoesNotCacheStaleValue() {
+        BookDTO stale = bookCache.get(1L, id -> {
+            BookDTO loaded = load(id);
+            // a write commits while this read is still in flight
+            bookCache.invalidate(id);
+            return loaded;
+        });
+
+        BookDTO result = bookCache.get(1L, this::load);
+
+        assertEquals("v1", stale.getTitle());
+        assertEquals("v2", result.getTitle());
+    }
+
+    @Test
+    void getAll_LoadsOnlyMissesInOneCallAndSkipsUnknownIds() {
+        bookCache.get(1L, this::load);
+        List<Set<Long>> requested = new ArrayList<>();
+
+        Map<Long, BookDTO> result = bookCache.getAll(List.of(1L, 2L, 3L), ids -> {
+            requested.add(ids);
+            Map<Long, BookDTO> loaded = new HashMap<>();
+            loaded.put(2L, load(2L));
+            return loaded;
+        });
+
+        assertEquals(List.of(Set.of(2L, 3L)), requested);
+        assertEquals(Set.of(1L, 2L), result.keySet());
+        assertEquals("v1", result.get(1L).getTitle());
+        assertEquals("v2", bookCache.get(2L, this::load).getTitle());
+    }
+
+    @Test
+    void getAll_InvalidatedWhileLoading_DoesNotCacheStaleValues() {
+        bookCache.getAll(List.of(1L), ids -> {
+            Map<Long, BookDTO> loaded = Map.of(1L, load(1L));
+            bookCache.invalidate(1L);
+            return loaded;
+        });
+
+        assertEquals("v2", bookCache.get(1L, this::load).getTitle());
+    }
+
+    @Test
+    void invalidateOlderThan_KeepsCopyAtOrPastVersion() {
+        bookCache.get(1L, id -> {
+            BookDTO loaded = load(id);
+            loaded.setVersion(3L);
+            return loaded;
+        });
+
+        bookCache.invalidateOlderThan(1L, 3L);
+        assertEquals("v1", bookCache.get(1L, this::load).getTitle());
+
+        bookCache.invalidateOlderThan(1L, 4L);
+        assertEquals("v2", bookCache.get(1L, this::load).getTitle());
+    }
+
+    private BookDTO load(Long id) {
+        BookDTO dto = new BookDTO();
+        dto.setId(id);
+        dto.setTitle("v" + loads.incrementAndGet());
+        return dto;
+    }
+}
@@ -0,0 +1,109 @@
+package com.jencys.books.changefeed;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookChangePageDTO;
+import com.jencys.books.exception.ChangeFeedExpiredException;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.model.BookChange;
+import com.jencys.books.repository.BookChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookChangeFeedTest {
+
+    @Mock
+    private BookChangeRepository bookChangeRepository;
+
+    private BooksProperties booksProperties;
+    private BookChangeFeed bookChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        booksProperties = new BooksProperties();
+        bookChangeFeed = new BookChangeFeed(bookChangeRepository, new BookMapper(), booksProperties);
+    }
+
+    @Test
+    void changesAfter_ReturnsChangesInSequenceOrder() {
+        when(bookChangeRepository.findIdsAfter(0L, Limit.of(500))).thenReturn(Arrays.asList(1L, 2L));
+        when(bookChangeRepository.findByIdBetweenOrderByIdAsc(1L, 2L, Limit.of(50)))
+                .thenReturn(Arrays.asList(change(1L, BookChange.Type.CREATED), change(2L, BookChange.Type.DELETED)));
+
+        BookChangePageDTO page = bookChangeFeed.changesAfter(0L, null);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(BookChange.Type.CREATED, page.getContent().get(0).getType());
+        assertEquals(2L, page.getNextCursor());
+    }
+
+    @Test
+    void changesAfter_WithoutCursor_StartsAtCurrentSequence() {
+        when(bookChangeRepository.findIdsAfter(0L, Limit.of(500))).thenReturn(Arrays.asList(1L, 2L));
+
+        BookChangePageDTO page = bookChangeFeed.changesAfter(null, null);
+
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(2L, page.getNextCursor());
+        verify(bookChangeRepository, never()).findByIdBetweenOrderByIdAsc(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void changesAfter_SequenceGap_HoldsBackLaterChanges() {
+        booksProperties.getChanges().setGapTimeout(Duration.ofHours(1));
+        // 2 is still being committed
+        when(bookChangeRepository.findIdsAfter(eq(0L), any())).thenReturn(Arrays.asList(1L, 3L));
+        when(bookChangeRepository.findByIdBetweenOrderByIdAsc(1L, 1L, Limit.of(50)))
+                .thenReturn(Collections.singletonList(change(1L, BookChange.Type.CREATED)));
+
+        BookChangePageDTO page = bookChangeFeed.changesAfter(0L, null);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(1L, page.getNextCursor());
+    }
+
+    @Test
+    void changesAfter_ExpiredGap_IsSkipped() {
+        booksProperties.getChanges().setGapTimeout(Duration.ZERO);
+        // 2 was rolled back
+        when(bookChangeRepository.findIdsAfter(eq(0L), any())).thenReturn(Arrays.asList(1L, 3L));
+        when(bookChangeRepository.findByIdBetweenOrderByIdAsc(1L, 3L, Limit.of(50)))
+                .thenReturn(Arrays.asList(change(1L, BookChange.Type.CREATED), change(3L, BookChange.Type.UPDATED)));
+
+        BookChangePageDTO page = bookChangeFeed.changesAfter(0L, null);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(3L, page.getNextCursor());
+    }
+
+    @Test
+    void changesAfter_PurgedCursor_Throws() {
+        when(bookChangeRepository.findLatestSequence()).thenReturn(10L);
+        when(bookChangeRepository.findFirstByOrderByIdAsc())
+                .thenReturn(Optional.of(change(6L, BookChange.Type.CREATED)));
+        bookChangeFeed.start();
+        try {
+            assertThrows(ChangeFeedExpiredException.class, () -> bookChangeFeed.changesAfter(3L, null));
+        } finally {
+            bookChangeFeed.stop();
+        }
+    }
+
+    private static BookChange change(long sequence, BookChange.Type type) {
+        return new BookChange(sequence, 1L, type, type == BookChange.Type.DELETED ? null : 0L, Instant.now());
+    }
+}
@@ -0,0 +1,130 @@
+package com.jencys.books.cluster;
+
+import com.jencys.books.cache.BookCache;
+import com.jencys.books.cache.CatalogueVersion;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookInvalidationHandlerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookIsbnIndex bookIsbnIndex;
+
+    private BookCache bookCache;
+    private CatalogueVersion catalogueVersion;
+    private BookInvalidationHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        BooksProperties booksProperties = new BooksProperties();
+        bookCache = new BookCache(booksProperties);
+        catalogueVersion = new CatalogueVersion();
+        handler = new BookInvalidationHandler(bookRepository, bookCache, bookSearchIndex, bookIsbnIndex,
+                catalogueVersion, booksProperties);
+    }
+
+    @Test
+    void apply_Update_EvictsAndReindexesCurrentRow() {
+        cache(1L, 0L);
+        Book book = book(1L, 2L);
+        when(bookRepository.findAllById(Set.of(1L))).thenReturn(List.of(book));
+        String before = catalogueVersion.current();
+
+        int applied = handler.apply(List.of(new BookInvalidation(1L, 1L), new BookInvalidation(1L, 2L)));
+
+        assertEquals(2, applied);
+        assertEquals(1L, bookCache.get(1L, id -> dto(id, 1L)).getVersion());
+        verify(bookSearchIndex).index(book);
+        verify(bookIsbnIndex).index(book);
+        assertNotEquals(before, catalogueVersion.current());
+    }
+
+    @Test
+    void apply_OlderThanApplied_Skipped() {
+        handler.markApplied(new BookInvalidation(1L, 3L));
+        cache(1L, 3L);
+
+        int applied = handler.apply(List.of(new BookInvalidation(1L, 2L), new BookInvalidation(1L, 3L)));
+
+        assertEquals(0, applied);
+        assertEquals(3L, bookCache.get(1L, id -> fail("should still be cached")).getVersion());
+        verifyNoInteractions(bookRepository, bookSearchIndex, bookIsbnIndex);
+    }
+
+    @Test
+    void apply_NewerCopyAlreadyCached_KeepsIt() {
+        cache(1L, 5L);
+        when(bookRepository.findAllById(Set.of(1L))).thenReturn(List.of(book(1L, 5L)));
+
+        handler.apply(List.of(new BookInvalidation(1L, 4L)));
+
+        assertEquals(5L, bookCache.get(1L, id -> fail("should still be cached")).getVersion());
+    }
+
+    @Test
+    void apply_Deletion_RemovesAndWinsOverLaterUpdates() {
+        cache(1L, 0L);
+
+        handler.apply(List.of(BookInvalidation.deleted(1L)));
+        int applied = handler.apply(List.of(new BookInvalidation(1L, 7L)));
+
+        assertEquals(0, applied);
+        assertEquals(9L, bookCache.get(1L, id -> dto(id, 9L)).getVersion());
+        verify(bookSearchIndex).remove(1L);
+        verify(bookIsbnIndex).remove(1L);
+        verify(bookRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void apply_ChangedBookGoneFromDatabase_RemovedFromIndexes() {
+        when(bookRepository.findAllById(Set.of(2L))).thenReturn(List.of());
+
+        handler.apply(List.of(new BookInvalidation(2L, 0L)));
+
+        verify(bookSearchIndex).remove(2L);
+        verify(bookIsbnIndex).remove(2L);
+        verify(bookSearchIndex, never()).index(any());
+    }
+
+    private void cache(Long id, Long version) {
+        bookCache.get(id, key -> dto(key, version));
+    }
+
+    private static BookDTO dto(Long id, Long version) {
+        BookDTO dto = new BookDTO();
+        dto.setId(id);
+        dto.setVersion(version);
+        return dto;
+    }
+
+    private static Book book(Long id, Long version) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setVersion(version);
+        return book;
+    }
+}
@@ -0,0 +1,81 @@
+package com.jencys.books.cluster;
+
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookChangeDTO;
+import com.jencys.books.dto.BookChangePageDTO;
+import com.jencys.books.exception.ChangeFeedExpiredException;
+import com.jencys.books.model.BookChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxInvalidationBusTest {
+
+    @Mock
+    private BookChangeFeed bookChangeFeed;
+
+    @Mock
+    private BookInvalidationHandler bookInvalidationHandler;
+
+    private OutboxInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new OutboxInvalidationBus(bookChangeFeed, bookInvalidationHandler, new BooksProperties());
+    }
+
+    @Test
+    void poll_AppliesChangesAfterCursor() {
+        when(bookChangeFeed.changesAfter(isNull(), anyInt())).thenReturn(new BookChangePageDTO(List.of(), 10));
+        when(bookChangeFeed.changesAfter(eq(10L), anyInt())).thenReturn(new BookChangePageDTO(List.of(
+                change(11, BookChange.Type.UPDATED, 1L, 4L),
+                change(12, BookChange.Type.DELETED, 2L, null)), 12));
+        when(bookChangeFeed.changesAfter(eq(12L), anyInt())).thenReturn(new BookChangePageDTO(List.of(), 12));
+
+        bus.poll();
+        bus.poll();
+        bus.poll();
+
+        verify(bookInvalidationHandler).apply(List.of(new BookInvalidation(1L, 4L), BookInvalidation.deleted(2L)));
+        verifyNoMoreInteractions(bookInvalidationHandler);
+    }
+
+    @Test
+    void poll_CursorPurged_ResetsAndRestartsFromCurrent() {
+        when(bookChangeFeed.changesAfter(isNull(), anyInt()))
+                .thenReturn(new BookChangePageDTO(List.of(), 10))
+                .thenReturn(new BookChangePageDTO(List.of(), 50));
+        when(bookChangeFeed.changesAfter(eq(10L), anyInt()))
+                .thenThrow(new ChangeFeedExpiredException("purged"));
+
+        bus.poll();
+        bus.poll();
+        bus.poll();
+
+        verify(bookInvalidationHandler).reset();
+        verify(bookChangeFeed, times(2)).changesAfter(isNull(), anyInt());
+    }
+
+    @Test
+    void publish_MarksOwnWriteApplied() {
+        BookInvalidation invalidation = new BookInvalidation(1L, 2L);
+
+        bus.publish(invalidation);
+
+        verify(bookInvalidationHandler).markApplied(invalidation);
+    }
+
+    private static BookChangeDTO change(long sequence, BookChange.Type type, Long bookId, Long version) {
+        return new BookChangeDTO(sequence, type, bookId, version, Instant.EPOCH);
+    }
+}
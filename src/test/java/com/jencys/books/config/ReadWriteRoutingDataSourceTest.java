@@ -0,0 +1,38 @@
+package com.jencys.books.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransaction_RoutesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransactionPinnedToPrimary_RoutesToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY,
+                ReadWriteRoutingDataSource.onPrimary(routingDataSource::determineCurrentLookupKey));
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readWriteTransaction_RoutesToPrimary() {
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+}
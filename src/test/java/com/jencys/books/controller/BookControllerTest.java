@@ -1,24 +1,46 @@
 package com.jencys.books.controller;
 
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookBatchDTO;
 import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.dto.WriteOperationDTO;
 import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.BookVersionMismatchException;
 import com.jencys.books.exception.DuplicateISBNException;
 import com.jencys.books.exception.GlobalExceptionHandler;
+import com.jencys.books.exception.InvalidBatchException;
+import com.jencys.books.exception.WriteQueueFullException;
+import org.hibernate.exception.ConstraintViolationException;
+import com.jencys.books.ratelimit.RateLimitInterceptor;
+import com.jencys.books.ratelimit.RateLimiter;
 import com.jencys.books.service.impl.BookServiceImpl;
+import com.jencys.books.writebehind.BookWriteBehind;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -32,10 +54,15 @@ class BookControllerTest {
     @Mock
     private BookServiceImpl bookService;
 
+    @Mock
+    private BookWriteBehind bookWriteBehind;
+
     @InjectMocks
     private BookController bookController;
 
-    private ObjectMapper objectMapper;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private BookDTO testBookDTO;
 
     @BeforeEach
@@ -43,15 +70,15 @@ class BookControllerTest {
         mockMvc = MockMvcBuilders.standaloneSetup(bookController)
                 .setControllerAdvice(new GlobalExceptionHandler())
                 .build();
-        objectMapper = new ObjectMapper();
 
         testBookDTO = new BookDTO();
         testBookDTO.setId(1L);
         testBookDTO.setTitle("Test Book");
         testBookDTO.setAuthor("Test Author");
-        testBookDTO.setIsbn("1234567890");
+        testBookDTO.setIsbn("9780134685991");
         testBookDTO.setPublicationYear(2024);
         testBookDTO.setDescription("Test Description");
+        testBookDTO.setVersion(3L);
     }
 
     @Test
@@ -87,6 +114,47 @@ class BookControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void createBook_IsbnUniqueIndexViolation() throws Exception {
+        when(bookService.createBook(any(BookDTO.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("Unique index or primary key violation",
+                                new SQLException(), "PUBLIC.UX_BOOK_ISBN_INDEX_2")));
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testBookDTO)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("A book with this ISBN already exists"));
+    }
+
+    @Test
+    void createBook_WriteBehind_AcceptedWithOperation() throws Exception {
+        when(bookWriteBehind.isEnabled()).thenReturn(true);
+        when(bookWriteBehind.submit(eq(WriteOperationDTO.Type.CREATE), isNull(), any(BookDTO.class)))
+                .thenReturn(new WriteOperationDTO("op-1", WriteOperationDTO.Type.CREATE,
+                        WriteOperationDTO.Status.PENDING, null, null));
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testBookDTO)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/books/operations/op-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+        verify(bookService, never()).createBook(any(BookDTO.class));
+    }
+
+    @Test
+    void deleteBook_WriteBehindQueueFull_TooManyRequests() throws Exception {
+        when(bookWriteBehind.isEnabled()).thenReturn(true);
+        when(bookWriteBehind.submit(WriteOperationDTO.Type.DELETE, 1L, null))
+                .thenThrow(new WriteQueueFullException("Write queue is full, retry later"));
+
+        mockMvc.perform(delete("/api/books/1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     void getBook_Success() throws Exception {
         when(bookService.getBook(1L)).thenReturn(testBookDTO);
@@ -97,6 +165,50 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.author").value(testBookDTO.getAuthor()));
     }
 
+    @Test
+    void getBook_ReturnsVersionETag() throws Exception {
+        when(bookService.getBook(1L)).thenReturn(testBookDTO);
+
+        mockMvc.perform(get("/api/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"3-json\""))
+                .andExpect(header().string("Vary", "Accept"));
+        mockMvc.perform(get("/api/books/1").header("Accept", "application/x-jackson-smile"))
+                .andExpect(header().string("ETag", "W/\"3-smile\""));
+    }
+
+    @Test
+    void getBook_MatchingIfNoneMatch_NotModified() throws Exception {
+        when(bookService.getBook(1L)).thenReturn(testBookDTO);
+
+        mockMvc.perform(get("/api/books/1")
+                        .header("If-None-Match", "W/\"3-json\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getBookByIsbn_Success() throws Exception {
+        when(bookService.getBookByIsbn("0-13-468599-7")).thenReturn(testBookDTO);
+
+        mockMvc.perform(get("/api/books/isbn/0-13-468599-7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"3-json\""))
+                .andExpect(jsonPath("$.isbn").value("9780134685991"));
+    }
+
+    @Test
+    void createBook_InvalidIsbnCheckDigit_BadRequest() throws Exception {
+        testBookDTO.setIsbn("9780134685992");
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testBookDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.isbn").value("ISBN is not a valid ISBN-10 or ISBN-13"));
+        verify(bookService, never()).createBook(any());
+    }
+
     @Test
     void getBook_NotFound() throws Exception {
         when(bookService.getBook(1L)).thenThrow(new BookNotFoundException("Book not found"));
@@ -105,17 +217,142 @@ class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getBooksByIds_ReturnsBooksAndMissingIds() throws Exception {
+        when(bookService.getBooks(List.of(1L, 2L)))
+                .thenReturn(new BookBatchDTO(List.of(testBookDTO), List.of(2L)));
+
+        mockMvc.perform(get("/api/books").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].title").value(testBookDTO.getTitle()))
+                .andExpect(jsonPath("$.missingIds[0]").value(2));
+        verify(bookService, never()).getAllBooks(any(), any(), any());
+    }
+
+    @Test
+    void batchGetBooks_TooManyIds_BadRequest() throws Exception {
+        when(bookService.getBooks(List.of(1L, 2L, 3L)))
+                .thenThrow(new InvalidBatchException("At most 2 ids can be requested at once"));
+
+        mockMvc.perform(post("/api/books/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2,3]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("At most 2 ids can be requested at once"));
+    }
+
     @Test
     void getAllBooks_Success() throws Exception {
         List<BookDTO> books = Arrays.asList(testBookDTO);
-        when(bookService.getAllBooks()).thenReturn(books);
+        when(bookService.getAllBooks(null, null, null)).thenReturn(new BookPageDTO(books, null));
 
         mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookController.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].title").value(testBookDTO.getTitle()))
                 .andExpect(jsonPath("$[0].author").value(testBookDTO.getAuthor()));
     }
 
+    @Test
+    void getAllBooks_UnchangedCatalogue_NotModifiedWithoutQuery() throws Exception {
+        when(bookService.getCatalogueVersion()).thenReturn("abc-7");
+
+        mockMvc.perform(get("/api/books")
+                        .header("If-None-Match", "W/\"abc-7-json\""))
+                .andExpect(status().isNotModified());
+        verify(bookService, never()).getAllBooks(any(), any(), any());
+    }
+
+    @Test
+    void searchBooksByTitle_OtherFormat_DifferentETag() throws Exception {
+        when(bookService.getCatalogueVersion()).thenReturn("abc-7");
+
+        mockMvc.perform(get("/api/books/search/title").param("title", "a")
+                        .header("Accept", "application/cbor")
+                        .header("If-None-Match", "W/\"abc-7-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"abc-7-cbor\""))
+                .andExpect(header().string("Vary", "Accept"));
+        mockMvc.perform(get("/api/books/search/title").param("title", "a")
+                        .header("Accept", "application/cbor")
+                        .header("If-None-Match", "W/\"abc-7-cbor\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void searchBooks_BindsCriteriaAndReturnsNextCursorHeader() throws Exception {
+        List<BookDTO> books = Arrays.asList(testBookDTO);
+        when(bookService.searchBooks(any(BookSearchCriteria.class))).thenReturn(new BookSearchPageDTO(books, "MTpUZXN0"));
+
+        mockMvc.perform(get("/api/books/search")
+                        .param("author", "test")
+                        .param("yearFrom", "2000")
+                        .param("yearTo", "2024")
+                        .param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "MTpUZXN0"))
+                .andExpect(jsonPath("$[0].title").value(testBookDTO.getTitle()));
+        verify(bookService).searchBooks(argThat(criteria -> "test".equals(criteria.getAuthor())
+                && criteria.getYearFrom() == 2000 && criteria.getYearTo() == 2024
+                && "title".equals(criteria.getSort())));
+    }
+
+    @Test
+    void getAllBooks_WithCursor_ReturnsNextCursorHeader() throws Exception {
+        List<BookDTO> books = Arrays.asList(testBookDTO);
+        when(bookService.getAllBooks(0L, 1, null)).thenReturn(new BookPageDTO(books, 1L));
+
+        mockMvc.perform(get("/api/books")
+                        .param("after", "0")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "1"))
+                .andExpect(jsonPath("$[0].title").value(testBookDTO.getTitle()));
+    }
+
+    @Test
+    void getAllBooks_WithFields_OmitsUnselectedAttributes() throws Exception {
+        BookDTO summary = new BookDTO();
+        summary.setId(1L);
+        summary.setTitle("Test Book");
+        when(bookService.getAllBooks(null, null, "title")).thenReturn(new BookPageDTO(List.of(summary), null));
+
+        mockMvc.perform(get("/api/books")
+                        .param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Test Book"))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    void getAllBooks_WithoutFields_KeepsNullAttributes() throws Exception {
+        testBookDTO.setDescription(null);
+        when(bookService.getAllBooks(null, null, null)).thenReturn(new BookPageDTO(List.of(testBookDTO), null));
+
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"description\":null")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamAllBooks_Success() throws Exception {
+        doAnswer(invocation -> {
+            ((Consumer<BookDTO>) invocation.getArgument(1)).accept(testBookDTO);
+            return null;
+        }).when(bookService).streamAllBooks(isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/books")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(testBookDTO) + "\n"));
+    }
+
     @Test
     void updateBook_Success() throws Exception {
         when(bookService.updateBook(eq(1L), any(BookDTO.class))).thenReturn(testBookDTO);
@@ -127,6 +364,31 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.title").value(testBookDTO.getTitle()));
     }
 
+    @Test
+    void updateBook_IfMatch_PassesExpectedVersion() throws Exception {
+        testBookDTO.setVersion(null);
+        when(bookService.updateBook(eq(1L), argThat(book -> Long.valueOf(3L).equals(book.getVersion()))))
+                .thenReturn(testBookDTO);
+
+        mockMvc.perform(put("/api/books/1")
+                        .header("If-Match", "W/\"3-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testBookDTO)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateBook_StaleVersion_PreconditionFailed() throws Exception {
+        when(bookService.updateBook(eq(1L), any(BookDTO.class)))
+                .thenThrow(new BookVersionMismatchException("stale"));
+
+        mockMvc.perform(put("/api/books/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testBookDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void updateBook_NotFound() throws Exception {
         when(bookService.updateBook(eq(1L), any(BookDTO.class)))
@@ -156,24 +418,117 @@ class BookControllerTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void searchBooksByAuthor_Success() throws Exception {
-        List<BookDTO> books = Arrays.asList(testBookDTO);
-        when(bookService.searchBooksByAuthor(anyString())).thenReturn(books);
+        doAnswer(invocation -> {
+            ((Consumer<BookDTO>) invocation.getArgument(2)).accept(testBookDTO);
+            return null;
+        }).when(bookService).searchBooksByAuthor(anyString(), isNull(), any());
 
-        mockMvc.perform(get("/api/books/search/author")
+        MvcResult result = mockMvc.perform(get("/api/books/search/author")
                         .param("author", "Test"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].author").value(testBookDTO.getAuthor()));
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void searchBooksByTitle_Success() throws Exception {
-        List<BookDTO> books = Arrays.asList(testBookDTO);
-        when(bookService.searchBooksByTitle(anyString())).thenReturn(books);
+        doAnswer(invocation -> {
+            ((Consumer<BookDTO>) invocation.getArgument(2)).accept(testBookDTO);
+            return null;
+        }).when(bookService).searchBooksByTitle(anyString(), isNull(), any());
 
-        mockMvc.perform(get("/api/books/search/title")
+        MvcResult result = mockMvc.perform(get("/api/books/search/title")
                         .param("title", "Test"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value(testBookDTO.getTitle()));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchBooksByTitle_AcceptCbor_WritesCborArray() throws Exception {
+        doAnswer(invocation -> {
+            ((Consumer<BookDTO>) invocation.getArgument(2)).accept(testBookDTO);
+            return null;
+        }).when(bookService).searchBooksByTitle(anyString(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/books/search/title")
+                        .param("title", "Test")
+                        .header("Accept", "application/json;q=0.5, application/cbor"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+        BookDTO[] books = new ObjectMapper(new CBORFactory()).readValue(body, BookDTO[].class);
+        assertEquals(List.of(testBookDTO), List.of(books));
+    }
+
+    @Test
+    void suggest_ReturnsSuggestions() throws Exception {
+        when(bookService.suggest("clean c", 5)).thenReturn(List.of(
+                new BookSuggestionDTO("Clean Code", BookSuggestionDTO.Field.TITLE, 2, 0)));
+
+        mockMvc.perform(get("/api/books/suggest")
+                        .param("q", "clean c")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Clean Code"))
+                .andExpect(jsonPath("$[0].field").value("TITLE"))
+                .andExpect(jsonPath("$[0].books").value(2));
+    }
+
+    @Test
+    void searchBooksByTitle_OverRateLimit_TooManyRequests() throws Exception {
+        BooksProperties.RateLimit.Group search = new BooksProperties.RateLimit.Group();
+        search.setName("search");
+        search.setPaths(List.of("/api/books/search/**"));
+        search.setRequestsPerSecond(0.5);
+        BooksProperties booksProperties = new BooksProperties();
+        booksProperties.getRateLimit().setGroups(List.of(search));
+        MockMvc limitedMockMvc = MockMvcBuilders.standaloneSetup(bookController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addInterceptors(new RateLimitInterceptor(new RateLimiter(booksProperties), "X-Client-Id"))
+                .build();
+        limitedMockMvc.perform(get("/api/books/search/title").param("title", "a").header("X-Client-Id", "noisy"))
+                .andExpect(status().isOk());
+        limitedMockMvc.perform(get("/api/books/search/title").param("title", "a").header("X-Client-Id", "noisy"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+        limitedMockMvc.perform(get("/api/books/search/title").param("title", "a").header("X-Client-Id", "other"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void searchBooksByTitle_ClientHeaderNotConfigured_LimitedByAddress() throws Exception {
+        BooksProperties.RateLimit.Group search = new BooksProperties.RateLimit.Group();
+        search.setName("search");
+        search.setPaths(List.of("/api/books/search/**"));
+        search.setRequestsPerSecond(0.5);
+        BooksProperties booksProperties = new BooksProperties();
+        booksProperties.getRateLimit().setGroups(List.of(search));
+        MockMvc limitedMockMvc = MockMvcBuilders.standaloneSetup(bookController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addInterceptors(new RateLimitInterceptor(new RateLimiter(booksProperties),
+                        booksProperties.getRateLimit().getClientHeader()))
+                .build();
+        limitedMockMvc.perform(get("/api/books/search/title").param("title", "a").header("X-Client-Id", "noisy"))
+                .andExpect(status().isOk());
+        // a client cannot escape its bucket by sending a header nobody vouches for
+        limitedMockMvc.perform(get("/api/books/search/title").param("title", "a").header("X-Client-Id", "other"))
+                .andExpect(status().isTooManyRequests());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.jencys.books.export;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookExportDTO;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.repository.BookViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookExporterTest {
+
+    @Mock
+    private BookViewRepository bookViewRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    private BooksProperties booksProperties;
+    private BookExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        booksProperties = new BooksProperties();
+        booksProperties.getExport().setDirectory(directory);
+        booksProperties.getExport().setRowGroupSize(2);
+        exporter = new BookExporter(bookViewRepository, transactionManager, booksProperties);
+    }
+
+    @Test
+    void export_WritesCsvAndColumnarFiles() throws Exception {
+        when(bookViewRepository.stream(any(), any(), any(), any()))
+                .thenReturn(books(1, 2), books(3, 4), books(5));
+
+        BookExportDTO result = exporter.export(false);
+
+        assertEquals(BookExportDTO.State.COMPLETED, result.getState());
+        assertEquals(5, result.getBooks());
+        assertEquals(5L, result.getLastId());
+        assertEquals(List.of(book(1), book(2), book(3), book(4), book(5)), readColumnar());
+        List<String> csv = Files.readAllLines(directory.resolve(BookExporter.CSV), StandardCharsets.UTF_8);
+        assertEquals(6, csv.size());
+        assertEquals("id,title,author,isbn,publicationYear,description,version", csv.get(0));
+        assertEquals("1,\"Title, \"\"1\"\"\",Author 1,9780134685991,2001,,0", csv.get(1));
+        assertFalse(Files.exists(directory.resolve(BookExporter.CHECKPOINT)));
+        assertFalse(Files.exists(directory.resolve(BookExporter.CSV + BookExporter.PART)));
+    }
+
+    @Test
+    void export_EmptyCatalogue_WritesEmptyFiles() throws Exception {
+        when(bookViewRepository.stream(any(), any(), any(), any())).thenReturn(Stream.empty());
+
+        BookExportDTO result = exporter.export(false);
+
+        assertEquals(BookExportDTO.State.COMPLETED, result.getState());
+        assertEquals(0, result.getBooks());
+        assertTrue(readColumnar().isEmpty());
+        assertEquals(1, Files.readAllLines(directory.resolve(BookExporter.CSV)).size());
+    }
+
+    @Test
+    void export_FailedMidway_ResumesAfterCheckpoint() throws Exception {
+        when(bookViewRepository.stream(any(), any(), any(), any()))
+                .thenReturn(books(1, 2))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(books(3, 4), books(5));
+
+        BookExportDTO failed = exporter.export(false);
+        assertEquals(BookExportDTO.State.FAILED, failed.getState());
+        assertEquals(2, failed.getBooks());
+        assertEquals(2L, failed.getLastId());
+
+        BookExportDTO resumed = exporter.export(false);
+
+        assertEquals(BookExportDTO.State.COMPLETED, resumed.getState());
+        assertEquals(5, resumed.getBooks());
+        assertEquals(List.of(book(1), book(2), book(3), book(4), book(5)), readColumnar());
+        assertEquals(6, Files.readAllLines(directory.resolve(BookExporter.CSV)).size());
+    }
+
+    @Test
+    void export_Restart_IgnoresCheckpoint() throws Exception {
+        when(bookViewRepository.stream(any(), any(), any(), any()))
+                .thenReturn(books(1, 2))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(books(1, 2), books(3));
+        exporter.export(false);
+
+        BookExportDTO restarted = exporter.export(true);
+
+        assertEquals(BookExportDTO.State.COMPLETED, restarted.getState());
+        assertEquals(List.of(book(1), book(2), book(3)), readColumnar());
+    }
+
+    @Test
+    void status_CheckpointOfPreviousRun_ReportedInterrupted() {
+        when(bookViewRepository.stream(any(), any(), any(), any()))
+                .thenReturn(books(1, 2))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+        exporter.export(false);
+
+        BookExportDTO status = new BookExporter(bookViewRepository, transactionManager, booksProperties).status();
+
+        assertEquals(BookExportDTO.State.INTERRUPTED, status.getState());
+        assertEquals(2L, status.getLastId());
+    }
+
+    @Test
+    void status_NoExport_Idle() {
+        assertEquals(BookExportDTO.State.IDLE, exporter.status().getState());
+    }
+
+    private List<BookView> readColumnar() throws Exception {
+        List<BookView> books = new ArrayList<>();
+        BookColumnarFile.read(directory.resolve(BookExporter.COLUMNAR), books::add);
+        return books;
+    }
+
+    private static Stream<BookView> books(long... ids) {
+        return LongStream.of(ids).mapToObj(BookExporterTest::book);
+    }
+
+    private static BookView book(long id) {
+        return new BookView(id, "Title, \"" + id + "\"", "Author " + id, "9780134685991",
+                id % 2 == 0 ? null : 2000 + (int) id, null, 0L);
+    }
+}
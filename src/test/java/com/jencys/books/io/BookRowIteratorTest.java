@@ -0,0 +1,87 @@
+package com.jencys.books.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookRowIteratorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void json_ReadsArray() {
+        List<BookImportRow> rows = readAll(new JsonBookRowIterator(objectMapper, stream(
+                "[{\"title\":\"A\",\"author\":\"X\",\"isbn\":\"1\",\"publicationYear\":2000},"
+                        + "{\"title\":\"B\",\"author\":\"Y\",\"isbn\":\"2\",\"publicationYear\":2001}]")));
+
+        assertEquals(2, rows.size());
+        assertEquals(2L, rows.get(1).getRowNumber());
+        assertEquals("B", rows.get(1).getBook().getTitle());
+        assertEquals(2001, rows.get(1).getBook().getPublicationYear());
+    }
+
+    @Test
+    void json_ReadsNdjson() {
+        List<BookImportRow> rows = readAll(new JsonBookRowIterator(objectMapper, stream(
+                "{\"title\":\"A\",\"isbn\":\"1\"}\n{\"title\":\"B\",\"isbn\":\"2\"}\n")));
+
+        assertEquals(2, rows.size());
+        assertEquals("1", rows.get(0).getBook().getIsbn());
+        assertEquals("2", rows.get(1).getBook().getIsbn());
+    }
+
+    @Test
+    void json_MalformedRow_EndsWithFailedRow() {
+        List<BookImportRow> rows = readAll(new JsonBookRowIterator(objectMapper, stream(
+                "{\"title\":\"A\",\"isbn\":\"1\"}\n{\"title\":\"B\",\"publicationYear\":\"soon\"}\n{\"title\":\"C\"}\n")));
+
+        assertEquals(2, rows.size());
+        assertNull(rows.get(0).getError());
+        assertNotNull(rows.get(1).getError());
+        assertNull(rows.get(1).getBook());
+    }
+
+    @Test
+    void csv_ReadsColumnsByHeader() {
+        List<BookImportRow> rows = readAll(new CsvBookRowIterator(stream(
+                "isbn,title,author,publication_year,description\n"
+                        + "1,\"Code, Complete\",Steve McConnell,2004,\"A \"\"classic\"\"\nin two lines\"\n"
+                        + "\n"
+                        + "2,Refactoring,Martin Fowler,1999,\n")));
+
+        assertEquals(2, rows.size());
+        assertEquals("Code, Complete", rows.get(0).getBook().getTitle());
+        assertEquals("A \"classic\"\nin two lines", rows.get(0).getBook().getDescription());
+        assertEquals(2004, rows.get(0).getBook().getPublicationYear());
+        assertEquals("2", rows.get(1).getBook().getIsbn());
+        assertNull(rows.get(1).getBook().getDescription());
+    }
+
+    @Test
+    void csv_InvalidYear_ReturnsFailedRowAndContinues() {
+        List<BookImportRow> rows = readAll(new CsvBookRowIterator(stream(
+                "title,author,isbn,publicationYear\nA,X,1,later\nB,Y,2,2001\n")));
+
+        assertEquals(2, rows.size());
+        assertNotNull(rows.get(0).getError());
+        assertEquals("B", rows.get(1).getBook().getTitle());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<BookImportRow> readAll(Iterator<BookImportRow> iterator) {
+        List<BookImportRow> rows = new ArrayList<>();
+        iterator.forEachRemaining(rows::add);
+        return rows;
+    }
+}
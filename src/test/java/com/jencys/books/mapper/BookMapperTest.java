@@ -0,0 +1,56 @@
+package com.jencys.books.mapper;
+
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookView;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookMapperTest {
+
+    private final BookMapper bookMapper = new BookMapper();
+
+    @Test
+    void toDTO_CopiesAllFields() {
+        Book book = new Book(1L, "Test Book", "Test Author", "1234567890", 2024, "Test Description", 3L);
+
+        BookDTO dto = bookMapper.toDTO(book);
+
+        assertEquals(1L, dto.getId());
+        assertEquals("Test Book", dto.getTitle());
+        assertEquals("Test Author", dto.getAuthor());
+        assertEquals("1234567890", dto.getIsbn());
+        assertEquals(2024, dto.getPublicationYear());
+        assertEquals("Test Description", dto.getDescription());
+        assertEquals(3L, dto.getVersion());
+    }
+
+    @Test
+    void toDTO_PartialView_LeavesUnselectedFieldsNull() {
+        BookDTO dto = bookMapper.toDTO(new BookView(1L, "Test Book", "Test Author", null, null, null, null));
+
+        assertEquals(1L, dto.getId());
+        assertEquals("Test Book", dto.getTitle());
+        assertEquals("Test Author", dto.getAuthor());
+        assertNull(dto.getDescription());
+        assertNull(dto.getVersion());
+    }
+
+    @Test
+    void toEntity_RoundTrips() {
+        Book book = new Book(1L, "Test Book", "Test Author", "1234567890", 2024, "Test Description", 3L);
+
+        assertEquals(book, bookMapper.toEntity(bookMapper.toDTO(book)));
+    }
+
+    @Test
+    void updateEntity_KeepsIdAndVersion() {
+        Book book = new Book(1L, "Old", "Old Author", "1", 1999, null, 3L);
+        BookDTO dto = bookMapper.toDTO(new Book(7L, "New", "New Author", "2", 2001, "New Description", 9L));
+
+        bookMapper.updateEntity(dto, book);
+
+        assertEquals(new Book(1L, "New", "New Author", "2", 2001, "New Description", 3L), book);
+    }
+}
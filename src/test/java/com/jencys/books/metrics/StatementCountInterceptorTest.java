@@ -0,0 +1,64 @@
+package com.jencys.books.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountInterceptorTest {
+
+    private final StatementCounter statementCounter = new StatementCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatementCountInterceptor interceptor =
+            new StatementCountInterceptor(statementCounter, meterRegistry);
+
+    @Test
+    void afterCompletion_RecordsStatementsIssuedDuringRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        statementCounter.inspect("select 1");
+        statementCounter.inspect("select 2");
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        DistributionSummary summary = meterRegistry.get("books.http.statements")
+                .tag("uri", "/api/books/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+        assertFalse(statementCounter.isActive());
+    }
+
+    @Test
+    void asyncDispatch_DoesNotRecordSecondSample() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        statementCounter.inspect("select 1");
+        interceptor.afterConcurrentHandlingStarted(request, response, new Object());
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        DistributionSummary summary = meterRegistry.get("books.http.statements").summary();
+        assertEquals(1, summary.count());
+        assertEquals(1, summary.totalAmount());
+    }
+
+    @Test
+    void inspect_IgnoresStatementsOutsideRequest() {
+        statementCounter.inspect("select 1");
+
+        assertFalse(statementCounter.isActive());
+        assertEquals(0, statementCounter.stop());
+    }
+}
@@ -0,0 +1,136 @@
+package com.jencys.books.ratelimit;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        BooksProperties booksProperties = new BooksProperties();
+        booksProperties.getRateLimit().setGroups(List.of(
+                group("search", "/api/books/search/**", 10, 2, 3, 2),
+                group("default", "/api/books/**", 0, 1, 0, 0)));
+        rateLimiter = new RateLimiter(booksProperties, now::get);
+    }
+
+    @Test
+    void acquire_BurstThenRefillAtRate() {
+        rateLimiter.acquire("a", "/api/books/search/title").release();
+        rateLimiter.acquire("a", "/api/books/search/title").release();
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class, () ->
+                rateLimiter.acquire("a", "/api/books/search/title"));
+        assertEquals(Duration.ofMillis(100), ex.getRetryAfter());
+
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        assertNotNull(rateLimiter.acquire("a", "/api/books/search/title"));
+    }
+
+    @Test
+    void acquire_ClientsHaveSeparateBuckets() {
+        rateLimiter.acquire("a", "/api/books/search/title").release();
+        rateLimiter.acquire("a", "/api/books/search/title").release();
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("a", "/api/books/search/title"));
+        assertNotNull(rateLimiter.acquire("b", "/api/books/search/title"));
+    }
+
+    @Test
+    void acquire_BulkheadsLimitConcurrencyUntilReleased() {
+        RateLimiter.Permit first = rateLimiter.acquire("a", "/api/books/search");
+        rateLimiter.acquire("b", "/api/books/search");
+        rateLimiter.acquire("c", "/api/books/search");
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        // the group allows three at once across clients
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("d", "/api/books/search"));
+
+        first.release();
+        first.release();
+        assertNotNull(rateLimiter.acquire("d", "/api/books/search"));
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("e", "/api/books/search"));
+    }
+
+    @Test
+    void acquire_RejectedByBulkhead_KeepsToken() {
+        BooksProperties booksProperties = new BooksProperties();
+        booksProperties.getRateLimit().setGroups(List.of(group("search", "/api/books/search/**", 10, 3, 0, 1)));
+        RateLimiter limiter = new RateLimiter(booksProperties, now::get);
+
+        RateLimiter.Permit first = limiter.acquire("a", "/api/books/search");
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire("a", "/api/books/search"));
+        first.release();
+
+        // the burst of three was only spent by admitted requests
+        limiter.acquire("a", "/api/books/search").release();
+        assertNotNull(limiter.acquire("a", "/api/books/search"));
+    }
+
+    @Test
+    void acquire_RejectedByRate_ReleasesBulkheads() {
+        rateLimiter.acquire("a", "/api/books/search/title").release();
+        rateLimiter.acquire("a", "/api/books/search/title").release();
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("a", "/api/books/search/title"));
+        }
+
+        assertNotNull(rateLimiter.acquire("b", "/api/books/search/title"));
+        assertNotNull(rateLimiter.acquire("c", "/api/books/search/title"));
+    }
+
+    @Test
+    void acquire_FirstMatchingGroupApplies() {
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.acquire("a", "/api/books/" + i);
+        }
+
+        assertNull(rateLimiter.acquire("a", "/actuator/health"));
+    }
+
+    @Test
+    void bindTo_PublishesOutcomesPerGroup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        rateLimiter.bindTo(registry);
+
+        RateLimiter.Permit first = rateLimiter.acquire("a", "/api/books/search/title");
+        rateLimiter.acquire("a", "/api/books/search/title");
+        // two requests of this client are still running
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("a", "/api/books/search/title"));
+        first.release();
+        // a slot is free, but the burst is spent
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("a", "/api/books/search/title"));
+
+        assertEquals(2, registry.get("books.ratelimit.requests")
+                .tags("group", "search", "outcome", "permitted").functionCounter().count());
+        assertEquals(1, registry.get("books.ratelimit.requests")
+                .tags("group", "search", "outcome", "rate_limited").functionCounter().count());
+        assertEquals(1, registry.get("books.ratelimit.requests")
+                .tags("group", "search", "outcome", "bulkhead_full").functionCounter().count());
+        assertEquals(1, registry.get("books.ratelimit.active").tag("group", "search").gauge().value());
+    }
+
+    private static BooksProperties.RateLimit.Group group(String name, String path, double rate, int burst,
+                                                         int maxConcurrent, int maxConcurrentPerClient) {
+        BooksProperties.RateLimit.Group group = new BooksProperties.RateLimit.Group();
+        group.setName(name);
+        group.setPaths(List.of(path));
+        group.setRequestsPerSecond(rate);
+        group.setBurst(burst);
+        group.setMaxConcurrent(maxConcurrent);
+        group.setMaxConcurrentPerClient(maxConcurrentPerClient);
+        return group;
+    }
+}
@@ -0,0 +1,124 @@
+package com.jencys.books.search;
+
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookIsbnProjection;
+import com.jencys.books.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookIsbnIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private PrimaryReads primaryReads = new PrimaryReads(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private BookIsbnIndex bookIsbnIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.streamIsbns()).thenReturn(Stream.of(
+                projection(1L, "9780134685991"),
+                // written before ISBNs were normalised
+                projection(2L, "0-13-235088-2"),
+                projection(3L, "not an isbn")));
+        bookIsbnIndex.rebuild();
+    }
+
+    @Test
+    void rebuild_IndexesCanonicalIsbns() {
+        assertTrue(bookIsbnIndex.isReady());
+        assertEquals(2, bookIsbnIndex.size());
+        assertEquals(1L, bookIsbnIndex.find(9780134685991L));
+        assertEquals(2L, bookIsbnIndex.find(9780132350884L));
+        assertEquals(BookIsbnIndex.MISSING, bookIsbnIndex.find(9780201633610L));
+    }
+
+    @Test
+    void index_ChangedIsbn_ReleasesThePreviousOne() {
+        bookIsbnIndex.index(book(1L, "9780201633610"));
+
+        assertEquals(1L, bookIsbnIndex.find(9780201633610L));
+        assertEquals(BookIsbnIndex.MISSING, bookIsbnIndex.find(9780134685991L));
+        assertEquals(2, bookIsbnIndex.size());
+    }
+
+    @Test
+    void remove_DropsTheBook() {
+        bookIsbnIndex.remove(2L);
+
+        assertEquals(BookIsbnIndex.MISSING, bookIsbnIndex.find(9780132350884L));
+        assertEquals(1, bookIsbnIndex.size());
+    }
+
+    @Test
+    void indexAndRemove_ManyBooks_KeepEveryOtherBookFindable() {
+        long base = 978_000_000_000L;
+        for (long id = 10; id < 5_000; id++) {
+            bookIsbnIndex.index(book(id, isbn13(base + id)));
+        }
+        for (long id = 10; id < 5_000; id += 2) {
+            bookIsbnIndex.remove(id);
+        }
+
+        for (long id = 10; id < 5_000; id++) {
+            long expected = id % 2 == 0 ? BookIsbnIndex.MISSING : id;
+            assertEquals(expected, bookIsbnIndex.find((base + id) * 10 + checkDigit(base + id)));
+        }
+        assertEquals(2 + 2_495, bookIsbnIndex.size());
+    }
+
+    @Test
+    void find_InvalidIsbn_Missing() {
+        assertEquals(BookIsbnIndex.MISSING, bookIsbnIndex.find(-1));
+    }
+
+    private static String isbn13(long twelveDigits) {
+        return twelveDigits + String.valueOf(checkDigit(twelveDigits));
+    }
+
+    private static long checkDigit(long twelveDigits) {
+        String digits = String.valueOf(twelveDigits);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static Book book(Long id, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setIsbn(isbn);
+        return book;
+    }
+
+    private static BookIsbnProjection projection(Long id, String isbn) {
+        return new BookIsbnProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getIsbn() {
+                return isbn;
+            }
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package com.jencys.books.search;
+
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookTextProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private PrimaryReads primaryReads = new PrimaryReads(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.streamTextFields()).thenReturn(Stream.of(
+                projection(1L, "Clean Code", "Robert C. Martin"),
+                projection(2L, "Clean Architecture", "Robert C. Martin"),
+                projection(3L, "Refactoring", "Martin Fowler")));
+        bookSearchIndex.rebuild();
+    }
+
+    @Test
+    void rebuild_MarksIndexReady() {
+        assertTrue(bookSearchIndex.isReady());
+    }
+
+    @Test
+    void search_MatchesSubstringIgnoringCase() {
+        assertEquals(Arrays.asList(1L, 2L), bookSearchIndex.searchTitle("cLEAN"));
+        assertEquals(Arrays.asList(2L), bookSearchIndex.searchTitle("n arch"));
+        assertEquals(Arrays.asList(1L, 2L, 3L), bookSearchIndex.searchAuthor("martin"));
+    }
+
+    @Test
+    void search_ShortAndEmptyTerms_FallBackToVerification() {
+        assertEquals(Arrays.asList(3L), bookSearchIndex.searchTitle("g"));
+        assertEquals(Arrays.asList(1L, 2L, 3L), bookSearchIndex.searchTitle(""));
+    }
+
+    @Test
+    void search_NoMatch_ReturnsEmpty() {
+        assertEquals(Collections.emptyList(), bookSearchIndex.searchTitle("Kafka"));
+        assertEquals(Collections.emptyList(), bookSearchIndex.searchTitle("Clean Codes"));
+    }
+
+    @Test
+    void index_ReplacesPreviousValues() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("The Pragmatic Programmer");
+        book.setAuthor("Andrew Hunt");
+
+        bookSearchIndex.index(book);
+
+        assertEquals(Arrays.asList(2L), bookSearchIndex.searchTitle("clean"));
+        assertEquals(Arrays.asList(1L), bookSearchIndex.searchTitle("pragmatic"));
+        assertEquals(Arrays.asList(2L, 3L), bookSearchIndex.searchAuthor("martin"));
+    }
+
+    @Test
+    void remove_DropsBookFromResults() {
+        bookSearchIndex.remove(2L);
+
+        List<Long> result = bookSearchIndex.searchTitle("clean");
+
+        assertEquals(Arrays.asList(1L), result);
+    }
+
+    @Test
+    void suggest_FollowsIndexedChanges() {
+        Book book = new Book();
+        book.setId(3L);
+        book.setTitle("Clean Agile");
+        book.setAuthor("Robert C. Martin");
+
+        bookSearchIndex.index(book);
+        bookSearchIndex.remove(2L);
+
+        // "clean a" is long enough for one typo, so "Clean Code" follows the exact match
+        List<BookSuggestionDTO> result = bookSearchIndex.suggest("clean a", 10, 2);
+        assertEquals(List.of(new BookSuggestionDTO("Clean Agile", BookSuggestionDTO.Field.TITLE, 1, 0),
+                new BookSuggestionDTO("Clean Code", BookSuggestionDTO.Field.TITLE, 1, 1)), result);
+    }
+
+    private static BookTextProjection projection(Long id, String title, String author) {
+        return new BookTextProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.jencys.books.search;
+
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.dto.BookSuggestionDTO.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSuggesterTest {
+
+    private BookSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        suggester = new BookSuggester();
+        suggester.put(1L, "Clean Code", "Robert C. Martin");
+        suggester.put(2L, "Clean Architecture", "Robert C. Martin");
+        suggester.put(3L, "Clean Code", "Robert C. Martin");
+        suggester.put(4L, "Cien años de soledad", "Gabriel García Márquez");
+        suggester.put(5L, "The Lord of the Rings", "J. R. R. Tolkien");
+    }
+
+    @Test
+    void suggest_Prefix_MostCommonFirst() {
+        List<BookSuggestionDTO> result = suggester.suggest("clean", 10, 2);
+
+        assertEquals(List.of(
+                new BookSuggestionDTO("Clean Code", Field.TITLE, 2, 0),
+                new BookSuggestionDTO("Clean Architecture", Field.TITLE, 1, 0)), result);
+    }
+
+    @Test
+    void suggest_IgnoresCaseAccentsAndPunctuation() {
+        assertEquals("Gabriel García Márquez", suggester.suggest("GABRIEL GARCIA", 10, 0).get(0).getText());
+        assertEquals("J. R. R. Tolkien", suggester.suggest("j r r", 10, 0).get(0).getText());
+        assertEquals("Cien años de soledad", suggester.suggest("cien anos", 10, 0).get(0).getText());
+    }
+
+    @Test
+    void suggest_ToleratesTyposInLongerQueries() {
+        List<BookSuggestionDTO> result = suggester.suggest("the lrod of", 10, 2);
+
+        assertEquals(List.of(new BookSuggestionDTO("The Lord of the Rings", Field.TITLE, 1, 2)), result);
+        assertTrue(suggester.suggest("cln", 10, 2).isEmpty());
+    }
+
+    @Test
+    void suggest_MergesFieldsUpToLimit() {
+        List<BookSuggestionDTO> result = suggester.suggest("robert", 10, 2);
+
+        assertEquals(List.of(new BookSuggestionDTO("Robert C. Martin", Field.AUTHOR, 3, 0)), result);
+        assertEquals(1, suggester.suggest("c", 1, 0).size());
+    }
+
+    @Test
+    void remove_DropsValuesNoBookHolds() {
+        suggester.remove(2L);
+        suggester.put(1L, "Refactoring", "Martin Fowler");
+
+        assertEquals(List.of(new BookSuggestionDTO("Clean Code", Field.TITLE, 1, 0)),
+                suggester.suggest("clean", 10, 2));
+        assertEquals(4, suggester.size());
+    }
+
+    @Test
+    void normalise_CollapsesSeparators() {
+        assertEquals("garcia marquez", BookSuggester.normalise("  García--Márquez. "));
+        assertEquals("", BookSuggester.normalise("..."));
+    }
+}
@@ -0,0 +1,164 @@
+package com.jencys.books.service.impl;
+
+import com.jencys.books.cache.CatalogueVersion;
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.cluster.BookInvalidationBus;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookImportResultDTO;
+import com.jencys.books.dto.BookImportResultDTO.Status;
+import com.jencys.books.io.BookImportRow;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookBatchRepository;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
+import com.jencys.books.stats.BookStats;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceImplTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookBatchRepository bookBatchRepository;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookIsbnIndex bookIsbnIndex;
+
+    @Mock
+    private BookStats bookStats;
+
+    @Mock
+    private BookChangeFeed bookChangeFeed;
+
+    @Mock
+    private BookInvalidationBus bookInvalidationBus;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookImportServiceImpl bookImportService;
+    private BooksProperties booksProperties;
+
+    @BeforeEach
+    void setUp() {
+        booksProperties = new BooksProperties();
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        bookImportService = new BookImportServiceImpl(bookRepository, bookBatchRepository, bookSearchIndex,
+                bookIsbnIndex, bookStats, bookChangeFeed, bookInvalidationBus, new BookMapper(), new CatalogueVersion(), booksProperties,
+                validator, transactionTemplate);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            long id = 100;
+            for (Book book : invocation.<List<Book>>getArgument(0)) {
+                book.setId(id++);
+            }
+            return null;
+        }).when(bookBatchRepository).insertAll(anyList());
+    }
+
+    @Test
+    void importBooks_ReportsEveryRowInOrder() {
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(Collections.singletonList("9780132350884"));
+        List<BookImportRow> rows = Arrays.asList(
+                BookImportRow.of(1, book("9780134685991")),
+                BookImportRow.of(2, book("0-13-235088-2")),
+                BookImportRow.of(3, book("978-0-13-468599-1")),
+                BookImportRow.failed(4, "Unexpected token"),
+                BookImportRow.of(5, book("")),
+                BookImportRow.of(6, book("9780201633610")),
+                BookImportRow.of(7, book("9780201633611")));
+        List<BookImportResultDTO> results = new ArrayList<>();
+
+        bookImportService.importBooks(rows.iterator(), results::add);
+
+        assertEquals(7, results.size());
+        assertEquals(Status.CREATED, results.get(0).getStatus());
+        assertEquals(100L, results.get(0).getId());
+        assertEquals(Status.DUPLICATE, results.get(1).getStatus());
+        assertEquals(Status.DUPLICATE, results.get(2).getStatus());
+        assertEquals(Status.INVALID, results.get(3).getStatus());
+        assertEquals("Unexpected token", results.get(3).getMessage());
+        assertEquals(Status.INVALID, results.get(4).getStatus());
+        assertEquals(Status.CREATED, results.get(5).getStatus());
+        assertEquals(101L, results.get(5).getId());
+        assertEquals(Status.INVALID, results.get(6).getStatus());
+        assertEquals("9780134685991", results.get(0).getIsbn());
+        verify(bookRepository, times(1)).findExistingIsbns(anyCollection());
+        verify(bookSearchIndex, times(2)).index(any(Book.class));
+        verify(bookIsbnIndex, times(2)).index(any(Book.class));
+        verify(bookBatchRepository).insertCreatedChanges(argThat(books -> books.size() == 2));
+        verify(bookChangeFeed).publish();
+    }
+
+    @Test
+    void importBooks_IsbnIndexed_ReportsDuplicateOfUnnormalisedRow() {
+        // stored as "0-13-468599-7", so the query on the canonical form misses it
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(Collections.emptyList());
+        when(bookIsbnIndex.isReady()).thenReturn(true);
+        when(bookIsbnIndex.find(anyLong())).thenReturn(BookIsbnIndex.MISSING);
+        when(bookIsbnIndex.find(9780134685991L)).thenReturn(7L);
+        List<BookImportRow> rows = Arrays.asList(
+                BookImportRow.of(1, book("9780134685991")),
+                BookImportRow.of(2, book("9780132350884")));
+        List<BookImportResultDTO> results = new ArrayList<>();
+
+        bookImportService.importBooks(rows.iterator(), results::add);
+
+        assertEquals(Status.DUPLICATE, results.get(0).getStatus());
+        assertEquals(Status.CREATED, results.get(1).getStatus());
+        verify(bookBatchRepository).insertAll(argThat(books -> books.size() == 1));
+    }
+
+    @Test
+    void importBooks_SplitsIntoConfiguredBatches() {
+        booksProperties.getBulk().setBatchSize(2);
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(Collections.emptyList());
+        List<BookImportRow> rows = Arrays.asList(
+                BookImportRow.of(1, book("9780134685991")),
+                BookImportRow.of(2, book("9780132350884")),
+                BookImportRow.of(3, book("9780201633610")));
+        List<BookImportResultDTO> results = new ArrayList<>();
+
+        bookImportService.importBooks(rows.iterator(), results::add);
+
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == Status.CREATED));
+        verify(bookBatchRepository, times(2)).insertAll(anyList());
+    }
+
+    private static BookDTO book(String isbn) {
+        BookDTO book = new BookDTO();
+        book.setTitle("Title " + isbn);
+        book.setAuthor("Author");
+        book.setIsbn(isbn);
+        book.setPublicationYear(2020);
+        return book;
+    }
+}
@@ -1,24 +1,58 @@
 package com.jencys.books.service.impl;
 
+import com.jencys.books.cache.BookCache;
+import com.jencys.books.cache.CatalogueVersion;
+import com.jencys.books.changefeed.BookChangeFeed;
+import com.jencys.books.cluster.BookInvalidation;
+import com.jencys.books.cluster.BookInvalidationBus;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.dto.BookBatchDTO;
 import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
 import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.BookVersionMismatchException;
 import com.jencys.books.exception.DuplicateISBNException;
+import com.jencys.books.exception.InvalidBatchException;
+import com.jencys.books.exception.InvalidIsbnException;
+import com.jencys.books.exception.InvalidSearchException;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.repository.BookField;
 import com.jencys.books.repository.BookRepository;
 import com.jencys.books.model.Book;
+import com.jencys.books.model.BookChange;
+import com.jencys.books.repository.BookChangeRepository;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.repository.BookViewRepository;
+import com.jencys.books.search.BookIsbnIndex;
+import com.jencys.books.search.BookSearchIndex;
+import com.jencys.books.stats.BookStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,10 +61,49 @@ class BookServiceImplTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookIsbnIndex bookIsbnIndex;
+
+    @Mock
+    private BookViewRepository bookViewRepository;
+
+    @Mock
+    private BookChangeRepository bookChangeRepository;
+
+    @Mock
+    private BookChangeFeed bookChangeFeed;
+
+    @Mock
+    private BookInvalidationBus bookInvalidationBus;
+
+    @Mock
+    private BookStats bookStats;
+
+    @Spy
+    private BooksProperties booksProperties = new BooksProperties();
+
+    @Spy
+    private BookMapper bookMapper = new BookMapper();
+
+    @Spy
+    private CatalogueVersion catalogueVersion = new CatalogueVersion();
+
+    @Spy
+    private BookCache bookCache = new BookCache(new BooksProperties());
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Spy
+    private PrimaryReads primaryReads = new PrimaryReads(transactionManager);
+
     @InjectMocks
     private BookServiceImpl bookService;
 
     private Book testBook;
+    private BookView testBookView;
     private BookDTO testBookDTO;
 
     @BeforeEach
@@ -42,6 +115,9 @@ class BookServiceImplTest {
         testBook.setIsbn("1234567890");
         testBook.setPublicationYear(2024);
         testBook.setDescription("Test Description");
+        testBook.setVersion(0L);
+
+        testBookView = new BookView(1L, "Test Book", "Test Author", "1234567890", 2024, "Test Description", 0L);
 
         testBookDTO = new BookDTO();
         testBookDTO.setId(1L);
@@ -54,7 +130,6 @@ class BookServiceImplTest {
 
     @Test
     void createBook_Success() {
-        when(bookRepository.existsByIsbn(anyString())).thenReturn(false);
         when(bookRepository.save(any(Book.class))).thenReturn(testBook);
 
         BookDTO result = bookService.createBook(testBookDTO);
@@ -64,60 +139,179 @@ class BookServiceImplTest {
         assertEquals(testBookDTO.getAuthor(), result.getAuthor());
         assertEquals(testBookDTO.getIsbn(), result.getIsbn());
         verify(bookRepository).save(any(Book.class));
+        verify(bookSearchIndex).index(testBook);
+        verify(catalogueVersion).increment();
+        verify(bookChangeRepository).save(argThat((BookChange change) ->
+                change.getType() == BookChange.Type.CREATED && change.getBookId() == 1L));
+        verify(bookChangeFeed).publish();
+        verify(bookStats).add(testBook);
     }
 
     @Test
     void createBook_DuplicateISBN_ThrowsException() {
-        when(bookRepository.existsByIsbn(anyString())).thenReturn(true);
+        when(bookRepository.save(any(Book.class)))
+                .thenThrow(new DataIntegrityViolationException("Unique index violation"));
 
-        assertThrows(DuplicateISBNException.class, () ->
+        assertThrows(DataIntegrityViolationException.class, () ->
                 bookService.createBook(testBookDTO)
         );
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookSearchIndex, never()).index(any(Book.class));
     }
 
     @Test
     void getBook_Success() {
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookViewRepository.findAll(any(), eq(EnumSet.allOf(BookField.class)), any(), eq(Limit.of(1))))
+                .thenReturn(List.of(testBookView));
 
         BookDTO result = bookService.getBook(1L);
 
         assertNotNull(result);
         assertEquals(testBookDTO.getId(), result.getId());
         assertEquals(testBookDTO.getTitle(), result.getTitle());
+        assertEquals(testBookDTO.getDescription(), result.getDescription());
+    }
+
+    @Test
+    void getBook_SecondCall_ServedFromCache() {
+        when(bookViewRepository.findAll(any(), any(), any(), any())).thenReturn(List.of(testBookView));
+
+        bookService.getBook(1L);
+        BookDTO result = bookService.getBook(1L);
+
+        assertEquals(testBookDTO.getTitle(), result.getTitle());
+        verify(bookViewRepository, times(1)).findAll(any(), any(), any(), any());
+    }
+
+    @Test
+    void getBook_CacheMiss_LoadedInReadOnlyTransactionOnPrimary() {
+        when(bookViewRepository.findAll(any(), any(), any(), any())).thenReturn(List.of(testBookView));
+
+        bookService.getBook(1L);
+
+        verify(primaryReads).read(any());
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
     }
 
     @Test
     void getBook_NotFound_ThrowsException() {
-        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bookViewRepository.findAll(any(), any(), any(), any())).thenReturn(Collections.emptyList());
 
         assertThrows(BookNotFoundException.class, () ->
                 bookService.getBook(1L)
         );
     }
 
+    @Test
+    void getBooks_CacheHitsAndMisses_OneQueryInRequestOrder() {
+        when(bookViewRepository.findAll(any(), any(), any(), any())).thenReturn(List.of(testBookView));
+        bookService.getBook(1L);
+        BookView other = new BookView(3L, "Other", "Other Author", "0987654321", 2020, null, 0L);
+        when(bookViewRepository.findAll(any(), any(), any(), eq(Limit.unlimited()))).thenReturn(List.of(other));
+
+        BookBatchDTO result = bookService.getBooks(List.of(3L, 1L, 2L, 3L));
+
+        assertEquals(List.of(3L, 1L), result.getBooks().stream().map(BookDTO::getId).toList());
+        assertEquals(List.of(2L), result.getMissingIds());
+        // the first load of id 1, then a single query for the misses 3 and 2
+        verify(bookViewRepository, times(2)).findAll(any(), any(), any(), any());
+    }
+
+    @Test
+    void getBooks_TooManyIds_ThrowsException() {
+        booksProperties.getBulk().setMaxIds(2);
+
+        assertThrows(InvalidBatchException.class, () ->
+                bookService.getBooks(List.of(1L, 2L, 3L))
+        );
+        verify(bookViewRepository, never()).findAll(any(), any(), any(), any());
+    }
+
     @Test
     void getAllBooks_Success() {
-        List<Book> books = Collections.singletonList(testBook);
-        when(bookRepository.findAll()).thenReturn(books);
+        List<BookView> books = Collections.singletonList(testBookView);
+        when(bookViewRepository.findAll(any(), eq(EnumSet.allOf(BookField.class)), eq(Sort.by("id")),
+                eq(Limit.of(51)))).thenReturn(books);
 
-        List<BookDTO> result = bookService.getAllBooks();
+        BookPageDTO result = bookService.getAllBooks(null, null, null);
 
         assertNotNull(result);
+        assertEquals(1, result.getContent().size());
+        assertEquals(testBookDTO.getTitle(), result.getContent().get(0).getTitle());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAllBooks_MorePages_ReturnsNextCursor() {
+        List<BookView> books = new ArrayList<>();
+        for (long id = 11; id <= 13; id++) {
+            books.add(new BookView(id, null, null, null, null, null, null));
+        }
+        when(bookViewRepository.findAll(any(), eq(EnumSet.of(BookField.ID)), any(), eq(Limit.of(3))))
+                .thenReturn(books);
+
+        BookPageDTO result = bookService.getAllBooks(10L, 2, "id");
+
+        assertEquals(2, result.getContent().size());
+        assertEquals(12L, result.getNextCursor());
+    }
+
+    @Test
+    void getAllBooks_SizeAboveMax_IsCapped() {
+        when(bookViewRepository.findAll(any(), any(), any(), eq(Limit.of(501)))).thenReturn(Collections.emptyList());
+
+        BookPageDTO result = bookService.getAllBooks(null, 100_000, null);
+
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void streamAllBooks_Success() {
+        when(bookViewRepository.streamAll(EnumSet.of(BookField.ID, BookField.ISBN)))
+                .thenReturn(Stream.of(new BookView(1L, null, null, "1234567890", null, null, null)));
+        List<BookDTO> result = new ArrayList<>();
+
+        bookService.streamAllBooks("isbn", result::add);
+
         assertEquals(1, result.size());
-        assertEquals(testBookDTO.getTitle(), result.get(0).getTitle());
+        assertEquals(testBookDTO.getIsbn(), result.get(0).getIsbn());
+        assertNull(result.get(0).getDescription());
+    }
+
+    @Test
+    void getAllBooks_UnknownField_Throws() {
+        assertThrows(InvalidSearchException.class, () -> bookService.getAllBooks(null, null, "title,price"));
+        verifyNoInteractions(bookViewRepository);
     }
 
     @Test
     void updateBook_Success() {
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
-        when(bookRepository.save(any(Book.class))).thenReturn(testBook);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(testBook);
 
         BookDTO result = bookService.updateBook(1L, testBookDTO);
 
         assertNotNull(result);
         assertEquals(testBookDTO.getTitle(), result.getTitle());
-        verify(bookRepository).save(any(Book.class));
+        verify(bookRepository).saveAndFlush(any(Book.class));
+        verify(bookCache).invalidate(1L);
+        verify(bookChangeRepository).save(argThat((BookChange change) ->
+                change.getType() == BookChange.Type.UPDATED && change.getBookVersion() == 0L));
+        verify(bookInvalidationBus).publish(new BookInvalidation(1L, 0L));
+        verify(bookStats).update("Test Author", 2024, testBook);
+    }
+
+    @Test
+    void updateBook_StaleVersion_ThrowsException() {
+        testBook.setVersion(2L);
+        testBookDTO.setVersion(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+
+        assertThrows(BookVersionMismatchException.class, () ->
+                bookService.updateBook(1L, testBookDTO)
+        );
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+        verify(catalogueVersion, never()).increment();
     }
 
     @Test
@@ -127,7 +321,7 @@ class BookServiceImplTest {
         assertThrows(BookNotFoundException.class, () ->
                 bookService.updateBook(1L, testBookDTO)
         );
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
     }
 
     @Test
@@ -137,55 +331,209 @@ class BookServiceImplTest {
         existingBook.setIsbn("987654321");
 
         when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
-        when(bookRepository.existsByIsbn(testBookDTO.getIsbn())).thenReturn(true);
+        when(bookRepository.saveAndFlush(any(Book.class)))
+                .thenThrow(new DataIntegrityViolationException("Unique index violation"));
 
-        assertThrows(DuplicateISBNException.class, () ->
+        assertThrows(DataIntegrityViolationException.class, () ->
                 bookService.updateBook(1L, testBookDTO)
         );
-        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookCache, never()).invalidate(anyLong());
     }
 
     @Test
     void deleteBook_Success() {
-        when(bookRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(bookRepository).deleteById(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
 
         bookService.deleteBook(1L);
 
-        verify(bookRepository).deleteById(1L);
+        verify(bookRepository).delete(testBook);
+        verify(bookStats).remove("Test Author", 2024);
+        verify(bookCache).invalidate(1L);
+        verify(bookSearchIndex).remove(1L);
+        verify(bookChangeRepository).save(argThat((BookChange change) ->
+                change.getType() == BookChange.Type.DELETED && change.getBookVersion() == null));
+        verify(bookChangeFeed).publish();
+        verify(bookInvalidationBus).publish(BookInvalidation.deleted(1L));
     }
 
     @Test
     void deleteBook_NotFound_ThrowsException() {
-        when(bookRepository.existsById(1L)).thenReturn(false);
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(BookNotFoundException.class, () ->
                 bookService.deleteBook(1L)
         );
-        verify(bookRepository, never()).deleteById(anyLong());
+        verify(bookRepository, never()).delete(any(Book.class));
+    }
+
+    @Test
+    void createBook_IsbnTakenInIndex_RejectedWithoutInsert() {
+        testBookDTO.setIsbn("978-0-13-468599-1");
+        when(bookIsbnIndex.isReady()).thenReturn(true);
+        when(bookIsbnIndex.find(9780134685991L)).thenReturn(2L);
+
+        assertThrows(DuplicateISBNException.class, () -> bookService.createBook(testBookDTO));
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    void createBook_StoresCanonicalIsbn() {
+        testBookDTO.setIsbn("0-13-468599-7");
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> {
+            Book saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+
+        bookService.createBook(testBookDTO);
+
+        verify(bookRepository).save(argThat((Book book) -> "9780134685991".equals(book.getIsbn())));
+    }
+
+    @Test
+    void getBookByIsbn_ResolvesIdThroughIndex() {
+        when(bookIsbnIndex.isReady()).thenReturn(true);
+        when(bookIsbnIndex.find(9780134685991L)).thenReturn(1L);
+        when(bookViewRepository.findAll(any(), any(), any(), eq(Limit.of(1)))).thenReturn(List.of(testBookView));
+
+        BookDTO result = bookService.getBookByIsbn("978-0-13-468599-1");
+
+        assertEquals(1L, result.getId());
+    }
+
+    @Test
+    void getBookByIsbn_NotInIndex_ThrowsNotFound() {
+        when(bookIsbnIndex.isReady()).thenReturn(true);
+        when(bookIsbnIndex.find(9780134685991L)).thenReturn(BookIsbnIndex.MISSING);
+
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookByIsbn("9780134685991"));
+        verifyNoInteractions(bookViewRepository);
+    }
+
+    @Test
+    void getBookByIsbn_IndexNotReady_FallsBackToStoredSpellings() {
+        when(bookIsbnIndex.isReady()).thenReturn(false);
+        when(bookViewRepository.findAll(any(), any(), any(), eq(Limit.of(1))))
+                .thenReturn(List.of())
+                .thenReturn(List.of(testBookView));
+
+        BookDTO result = bookService.getBookByIsbn("978-0-13-468599-1");
+
+        assertEquals(1L, result.getId());
+        verify(bookViewRepository, times(2)).findAll(any(), any(), any(), eq(Limit.of(1)));
+    }
+
+    @Test
+    void getBookByIsbn_WrongCheckDigit_ThrowsInvalidIsbn() {
+        assertThrows(InvalidIsbnException.class, () -> bookService.getBookByIsbn("9780134685992"));
     }
 
     @Test
     void searchBooksByAuthor_Success() {
-        List<Book> books = Arrays.asList(testBook);
-        when(bookRepository.findByAuthorContainingIgnoreCase(anyString())).thenReturn(books);
+        when(bookViewRepository.stream(any(), any(), eq(Sort.by("id")))).thenReturn(Stream.of(testBookView));
 
-        List<BookDTO> result = bookService.searchBooksByAuthor("Test");
+        List<BookDTO> result = new ArrayList<>();
+        bookService.searchBooksByAuthor("Test", null, result::add);
 
-        assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testBookDTO.getAuthor(), result.get(0).getAuthor());
     }
 
     @Test
     void searchBooksByTitle_Success() {
-        List<Book> books = Arrays.asList(testBook);
-        when(bookRepository.findByTitleContainingIgnoreCase(anyString())).thenReturn(books);
+        when(bookViewRepository.stream(any(), any(), eq(Sort.by("id")))).thenReturn(Stream.of(testBookView));
 
-        List<BookDTO> result = bookService.searchBooksByTitle("Test");
+        List<BookDTO> result = new ArrayList<>();
+        bookService.searchBooksByTitle("Test", null, result::add);
 
-        assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testBookDTO.getTitle(), result.get(0).getTitle());
     }
+
+    @Test
+    void searchBooksByTitle_IndexReady_LoadsMatchesById() {
+        BookView otherBook = new BookView(2L, "Another Test Book", null, null, null, null, null);
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.searchTitle("test")).thenReturn(Arrays.asList(1L, 2L));
+        when(bookViewRepository.findAll(any(), eq(EnumSet.of(BookField.ID, BookField.TITLE)), eq(Sort.by("id")),
+                any())).thenReturn(Arrays.asList(new BookView(1L, "Test Book", null, null, null, null, null), otherBook));
+
+        List<BookDTO> result = new ArrayList<>();
+        bookService.searchBooksByTitle("test", "title", result::add);
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(2L, result.get(1).getId());
+        assertNull(result.get(0).getAuthor());
+    }
+
+    @Test
+    void searchBooks_MorePages_ReturnsCursorOfLastBook() {
+        BookView otherBook = new BookView(2L, "Another Test Book", null, null, null, null, null);
+        BookSearchCriteria criteria = new BookSearchCriteria();
+        criteria.setYearFrom(2000);
+        criteria.setSort("title");
+        criteria.setSize(1);
+        // the sort attribute is selected even though only the author was asked for
+        criteria.setFields("author");
+        when(bookViewRepository.findAll(ArgumentMatchers.<Specification<Book>>any(),
+                eq(EnumSet.of(BookField.ID, BookField.TITLE, BookField.AUTHOR)), any(), eq(Limit.of(2))))
+                .thenReturn(Arrays.asList(testBookView, otherBook));
+
+        BookSearchPageDTO result = bookService.searchBooks(criteria);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(1L, result.getContent().get(0).getId());
+        assertEquals(BookSearchSort.TITLE.cursor(testBookView), result.getNextCursor());
+
+        criteria.setAfter(result.getNextCursor());
+        assertDoesNotThrow(() -> bookService.searchBooks(criteria));
+    }
+
+    @Test
+    void searchBooks_DisjointIndexMatches_SkipsQuery() {
+        BookSearchCriteria criteria = new BookSearchCriteria();
+        criteria.setAuthor("author");
+        criteria.setTitle("test");
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.searchAuthor("author")).thenReturn(Arrays.asList(1L, 2L));
+        when(bookSearchIndex.searchTitle("test")).thenReturn(Collections.singletonList(3L));
+
+        BookSearchPageDTO result = bookService.searchBooks(criteria);
+
+        assertTrue(result.getContent().isEmpty());
+        assertNull(result.getNextCursor());
+        verifyNoInteractions(bookViewRepository);
+    }
+
+    @Test
+    void suggest_IndexNotReady_ReturnsEmpty() {
+        when(bookSearchIndex.isReady()).thenReturn(false);
+
+        assertTrue(bookService.suggest("test", null).isEmpty());
+        verify(bookSearchIndex, never()).suggest(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void suggest_ClampsLimit() {
+        List<BookSuggestionDTO> suggestions = List.of(
+                new BookSuggestionDTO("Test Book", BookSuggestionDTO.Field.TITLE, 1, 0));
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.suggest("test", 50, 2)).thenReturn(suggestions);
+        when(bookSearchIndex.suggest("test", 10, 2)).thenReturn(suggestions);
+
+        assertEquals(suggestions, bookService.suggest("test", 1000));
+        assertEquals(suggestions, bookService.suggest("test", null));
+    }
+
+    @Test
+    void searchBooks_InvalidSortOrCursor_Throws() {
+        BookSearchCriteria criteria = new BookSearchCriteria();
+        criteria.setSort("isbn");
+        assertThrows(InvalidSearchException.class, () -> bookService.searchBooks(criteria));
+
+        criteria.setSort("publicationYear");
+        criteria.setAfter(BookSearchSort.TITLE.cursor(testBookView));
+        assertThrows(InvalidSearchException.class, () -> bookService.searchBooks(criteria));
+    }
 }
@@ -0,0 +1,148 @@
+package com.jencys.books.service.impl;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookBatchDTO;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.BookPageDTO;
+import com.jencys.books.dto.BookSearchCriteria;
+import com.jencys.books.dto.BookSearchPageDTO;
+import com.jencys.books.dto.BookSuggestionDTO;
+import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.ReadOnlyCatalogueException;
+import com.jencys.books.mapper.BookMapper;
+import com.jencys.books.repository.BookView;
+import com.jencys.books.snapshot.BookSnapshotWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotBookServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path path;
+    private SnapshotBookServiceImpl bookService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        path = tempDir.resolve("books.snapshot");
+        List<BookView> books = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            books.add(new BookView(id, "Title " + (11 - id), id % 2 == 0 ? "Even Author" : "Odd Author",
+                    "978" + id, 2000 + (int) id, null, 0L));
+        }
+        BookSnapshotWriter.write(path, books.iterator(), Instant.ofEpochMilli(1_000));
+
+        BooksProperties booksProperties = new BooksProperties();
+        booksProperties.getSnapshot().setPath(path);
+        bookService = new SnapshotBookServiceImpl(new BookMapper(), booksProperties);
+        bookService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookService.stop();
+    }
+
+    @Test
+    void getBook_FoundAndMissing() {
+        assertEquals("Title 8", bookService.getBook(3L).getTitle());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBook(42L));
+    }
+
+    @Test
+    void getBooks_RequestOrderAndMissingIds() {
+        BookBatchDTO result = bookService.getBooks(List.of(4L, 42L, 1L));
+
+        assertEquals(List.of(4L, 1L), result.getBooks().stream().map(BookDTO::getId).toList());
+        assertEquals(List.of(42L), result.getMissingIds());
+    }
+
+    @Test
+    void getAllBooks_KeysetPagesWithSelectedFields() {
+        BookPageDTO first = bookService.getAllBooks(null, 4, "title");
+        BookPageDTO last = bookService.getAllBooks(8L, 4, null);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), first.getContent().stream().map(BookDTO::getId).toList());
+        assertEquals(4L, first.getNextCursor());
+        assertNull(first.getContent().get(0).getAuthor());
+        assertEquals(List.of(9L, 10L), last.getContent().stream().map(BookDTO::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void searchBooks_SortedPagesFollowCursor() {
+        BookSearchCriteria criteria = new BookSearchCriteria();
+        criteria.setAuthor("even");
+        criteria.setSort("title");
+        criteria.setSize(2);
+
+        BookSearchPageDTO first = bookService.searchBooks(criteria);
+        criteria.setAfter(first.getNextCursor());
+        BookSearchPageDTO second = bookService.searchBooks(criteria);
+
+        // "Title 1" < "Title 3" < "Title 5" < "Title 7" < "Title 9" as strings
+        assertEquals(List.of(10L, 8L), first.getContent().stream().map(BookDTO::getId).toList());
+        assertEquals(List.of(6L, 4L), second.getContent().stream().map(BookDTO::getId).toList());
+        assertNotNull(second.getNextCursor());
+    }
+
+    @Test
+    void searchBooks_IsbnPrefixAndYearRange() {
+        BookSearchCriteria criteria = new BookSearchCriteria();
+        criteria.setIsbnPrefix("978-1");
+        criteria.setYearTo(2005);
+
+        BookSearchPageDTO result = bookService.searchBooks(criteria);
+
+        assertEquals(List.of(1L), result.getContent().stream().map(BookDTO::getId).toList());
+    }
+
+    @Test
+    void searchBooksByAuthor_ScansInIdOrder() {
+        List<BookDTO> result = new ArrayList<>();
+        bookService.searchBooksByAuthor("ODD", "id", result::add);
+
+        assertEquals(List.of(1L, 3L, 5L, 7L, 9L), result.stream().map(BookDTO::getId).toList());
+    }
+
+    @Test
+    void suggest_CompletesAuthorsOnceIndexed() {
+        bookService.indexSuggestions();
+
+        List<BookSuggestionDTO> result = bookService.suggest("odd", null);
+
+        assertEquals(1, result.size());
+        assertEquals("Odd Author", result.get(0).getText());
+        assertEquals(BookSuggestionDTO.Field.AUTHOR, result.get(0).getField());
+        assertEquals(5, result.get(0).getBooks());
+    }
+
+    @Test
+    void writes_RejectedAsReadOnly() {
+        assertThrows(ReadOnlyCatalogueException.class, () -> bookService.deleteBook(1L));
+        assertThrows(ReadOnlyCatalogueException.class, () -> bookService.createBook(new BookDTO()));
+    }
+
+    @Test
+    void reloadIfChanged_SwapsInReplacedSnapshot() throws Exception {
+        String before = bookService.getCatalogueVersion();
+        BookSnapshotWriter.write(path, List.of(new BookView(42L, "New", "Author", "1", 2024, null, 0L)).iterator(),
+                Instant.ofEpochMilli(2_000));
+
+        bookService.reloadIfChanged();
+
+        assertEquals("New", bookService.getBook(42L).getTitle());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBook(1L));
+        assertNotEquals(before, bookService.getCatalogueVersion());
+    }
+}
@@ -0,0 +1,101 @@
+package com.jencys.books.snapshot;
+
+import com.jencys.books.repository.BookField;
+import com.jencys.books.repository.BookView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_ThenOpen_ReadsRowsBack() throws Exception {
+        Path path = tempDir.resolve("books.snapshot");
+        Instant createdAt = Instant.ofEpochMilli(1_700_000_000_000L);
+        List<BookView> books = List.of(
+                new BookView(2L, "Cien años de soledad", "García Márquez", "9780307474728", 1967, null, 4L),
+                new BookView(5L, "Dune", "Frank Herbert", "9780441013593", 1965, "Arrakis", 0L));
+
+        assertEquals(2, BookSnapshotWriter.write(path, books.iterator(), createdAt));
+        BookSnapshot snapshot = BookSnapshot.open(path);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(createdAt, snapshot.createdAt());
+        assertEquals(books.get(0), snapshot.view(0, EnumSet.allOf(BookField.class)));
+        assertEquals(books.get(1), snapshot.view(snapshot.find(5L), EnumSet.allOf(BookField.class)));
+        assertEquals(new BookView(5L, "Dune", null, null, null, null, null),
+                snapshot.view(1, EnumSet.of(BookField.ID, BookField.TITLE)));
+        assertEquals(-2, snapshot.find(3L));
+        assertEquals(1, snapshot.firstAfter(2L));
+        assertTrue(Files.list(tempDir).allMatch(path::equals));
+    }
+
+    @Test
+    void containsAndIsbnPrefix_MatchStoredValues() throws Exception {
+        Path path = tempDir.resolve("books.snapshot");
+        BookSnapshotWriter.write(path, List.of(
+                new BookView(1L, "Dune", "Frank Herbert", "978-3", 1965, null, 0L),
+                new BookView(2L, "Ñandú", "Anónimo", "978-1", 2001, null, 0L),
+                new BookView(3L, "Emma", "Jane Austen", "979-2", 1815, null, 0L)).iterator(), Instant.now());
+        BookSnapshot snapshot = BookSnapshot.open(path);
+
+        assertTrue(snapshot.authorContains(0, "HERB"));
+        assertFalse(snapshot.authorContains(2, "herb"));
+        assertTrue(snapshot.titleContains(1, "ñan"));
+        assertTrue(snapshot.authorContains(1, "nónimo"));
+
+        int[] range = snapshot.isbnPrefixRange("978");
+        assertEquals(2, range[1] - range[0]);
+        assertEquals(1, snapshot.isbnRow(range[0]));
+        assertEquals(0, snapshot.isbnRow(range[0] + 1));
+        assertEquals(2, snapshot.findIsbn("979-2"));
+        assertEquals(-1, snapshot.findIsbn("978"));
+    }
+
+    @Test
+    void write_IdsOutOfOrder_Rejected() {
+        Path path = tempDir.resolve("books.snapshot");
+        List<BookView> books = List.of(
+                new BookView(2L, "b", "b", "2", 2000, null, 0L),
+                new BookView(1L, "a", "a", "1", 2000, null, 0L));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                BookSnapshotWriter.write(path, books.iterator(), Instant.now())
+        );
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void open_NotASnapshot_Rejected() throws Exception {
+        Path path = tempDir.resolve("books.snapshot");
+        Files.writeString(path, "id,title\n1,Dune\n".repeat(4));
+
+        assertThrows(IOException.class, () -> BookSnapshot.open(path));
+    }
+
+    @Test
+    void isCurrent_FalseOnceReplaced() throws Exception {
+        Path path = tempDir.resolve("books.snapshot");
+        BookSnapshotWriter.write(path, List.<BookView>of().iterator(), Instant.now());
+        BookSnapshot snapshot = BookSnapshot.open(path);
+        assertTrue(snapshot.isCurrent());
+
+        BookSnapshotWriter.write(path, List.of(new BookView(1L, "a", "a", "1", 2000, null, 0L)).iterator(),
+                Instant.now());
+
+        assertFalse(snapshot.isCurrent());
+        assertEquals(0, snapshot.size());
+        assertEquals(1, BookSnapshot.open(path).size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.jencys.books.startup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyPackagesPostProcessorTest {
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @BeforeEach
+    void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+    }
+
+    @Test
+    void postProcess_BeanClassInPackage_MarkedLazy() {
+        beanFactory.registerBeanDefinition("messages", new RootBeanDefinition(StaticMessageSource.class));
+        beanFactory.registerBeanDefinition("test", new RootBeanDefinition(LazyPackagesPostProcessorTest.class));
+
+        new LazyPackagesPostProcessor(List.of("org.springframework.context")).postProcessBeanFactory(beanFactory);
+
+        assertTrue(beanFactory.getBeanDefinition("messages").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("test").isLazyInit());
+    }
+
+    @Test
+    void postProcess_BeanMethodOfConfigurationInPackage_MarkedLazy() {
+        beanFactory.registerBeanDefinition("config", new RootBeanDefinition(StaticMessageSource.class));
+        RootBeanDefinition fromMethod = new RootBeanDefinition();
+        fromMethod.setFactoryBeanName("config");
+        fromMethod.setFactoryMethodName("toString");
+        beanFactory.registerBeanDefinition("fromMethod", fromMethod);
+
+        new LazyPackagesPostProcessor(List.of("org.springframework.context")).postProcessBeanFactory(beanFactory);
+
+        assertTrue(beanFactory.getBeanDefinition("fromMethod").isLazyInit());
+    }
+
+    @Test
+    void postProcess_ExplicitlyEager_Kept() {
+        RootBeanDefinition eager = new RootBeanDefinition(StaticMessageSource.class);
+        eager.setLazyInit(false);
+        beanFactory.registerBeanDefinition("messages", eager);
+
+        new LazyPackagesPostProcessor(List.of("org.springframework.context")).postProcessBeanFactory(beanFactory);
+
+        assertFalse(beanFactory.getBeanDefinition("messages").isLazyInit());
+    }
+
+    @Test
+    void postProcess_PackageNameIsNotPrefixOfOther() {
+        beanFactory.registerBeanDefinition("messages", new RootBeanDefinition(StaticMessageSource.class));
+
+        new LazyPackagesPostProcessor(List.of("org.springframework.cont")).postProcessBeanFactory(beanFactory);
+
+        assertFalse(beanFactory.getBeanDefinition("messages").isLazyInit());
+    }
+}
@@ -0,0 +1,62 @@
+package com.jencys.books.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jencys.books.config.PrimaryReads;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadPathWarmUpTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookViewRepository bookViewRepository;
+
+    @Spy
+    private PrimaryReads primaryReads = new PrimaryReads(mock(PlatformTransactionManager.class));
+
+    private ReadPathWarmUp warmUp;
+
+    @BeforeEach
+    void setUp() {
+        warmUp = new ReadPathWarmUp(bookRepository, bookViewRepository, primaryReads, new ObjectMapper());
+    }
+
+    @Test
+    void afterSingletonsInstantiated_LooksUpMissingBook() {
+        when(bookRepository.findById(ReadPathWarmUp.MISSING_ID)).thenReturn(Optional.empty());
+        when(bookViewRepository.findAll(any(), any(), any(), eq(Limit.of(1)))).thenReturn(List.of());
+
+        warmUp.afterSingletonsInstantiated();
+
+        verify(bookRepository).findById(ReadPathWarmUp.MISSING_ID);
+        verify(primaryReads).read(any());
+        verify(bookViewRepository).findAll(any(), any(), any(), eq(Limit.of(1)));
+    }
+
+    @Test
+    void afterSingletonsInstantiated_DatabaseDown_DoesNotFailStartup() {
+        when(bookRepository.findById(ReadPathWarmUp.MISSING_ID))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertDoesNotThrow(warmUp::afterSingletonsInstantiated);
+        verifyNoInteractions(bookViewRepository);
+    }
+}
@@ -0,0 +1,134 @@
+package com.jencys.books.stats;
+
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.AuthorCountDTO;
+import com.jencys.books.dto.CatalogueStatsDTO;
+import com.jencys.books.dto.YearCountDTO;
+import com.jencys.books.model.Book;
+import com.jencys.books.repository.BookAuthorCountProjection;
+import com.jencys.books.repository.BookRepository;
+import com.jencys.books.repository.BookYearCountProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookStatsTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookStats bookStats;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.countByAuthor()).thenReturn(List.of(
+                authorCount("Robert C. Martin", 3), authorCount("Martin Fowler", 1)));
+        when(bookRepository.countByPublicationYear()).thenReturn(List.of(
+                yearCount(1999, 1), yearCount(2008, 2), yearCount(2017, 1)));
+        bookStats = new BookStats(bookRepository, new BooksProperties());
+    }
+
+    @Test
+    void summary_BeforeFirstCount_RunsAggregateQueries() {
+        assertEquals(new CatalogueStatsDTO(4, 2, 1999, 2017), bookStats.summary());
+        verify(bookRepository).countByAuthor();
+    }
+
+    @Test
+    void adjustments_ServedWithoutQueries() {
+        bookStats.rebuild();
+        clearInvocations(bookRepository);
+
+        bookStats.add(book("Kent Beck", 2000));
+        bookStats.update("Martin Fowler", 1999, book("Martin Fowler", 2018));
+        bookStats.remove("Robert C. Martin", 2008);
+
+        assertEquals(new CatalogueStatsDTO(4, 3, 2000, 2018), bookStats.summary());
+        assertEquals(List.of(
+                new AuthorCountDTO("Robert C. Martin", 2),
+                new AuthorCountDTO("Kent Beck", 1)), bookStats.topAuthors(2));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void yearHistogram_GroupsIntoAlignedBuckets() {
+        bookStats.rebuild();
+
+        assertEquals(List.of(
+                new YearCountDTO(1990, 1999, 1),
+                new YearCountDTO(2000, 2009, 2),
+                new YearCountDTO(2010, 2019, 1)), bookStats.yearHistogram(10));
+        assertEquals(3, bookStats.yearHistogram(1).size());
+    }
+
+    @Test
+    void remove_LastBookOfAuthor_DropsAuthor() {
+        bookStats.rebuild();
+
+        bookStats.remove("Martin Fowler", 1999);
+
+        assertEquals(List.of(new AuthorCountDTO("Robert C. Martin", 3)), bookStats.topAuthors(10));
+        assertEquals(2008, bookStats.summary().getEarliestYear());
+    }
+
+    @Test
+    void rebuild_WriteSeenByRecount_CountedOnce() {
+        bookStats.rebuild();
+        // the book is added while the recount runs, and the GROUP BY result already includes it
+        when(bookRepository.countByAuthor()).thenAnswer(invocation -> {
+            bookStats.add(book("Kent Beck", 2000));
+            return List.of(authorCount("Robert C. Martin", 3), authorCount("Martin Fowler", 1),
+                    authorCount("Kent Beck", 1));
+        });
+        when(bookRepository.countByPublicationYear()).thenReturn(List.of(
+                yearCount(1999, 1), yearCount(2000, 1), yearCount(2008, 2), yearCount(2017, 1)));
+
+        bookStats.rebuild();
+
+        assertEquals(new CatalogueStatsDTO(5, 3, 1999, 2017), bookStats.summary());
+        assertEquals(new YearCountDTO(2000, 2000, 1), bookStats.yearHistogram(1).get(1));
+    }
+
+    private static Book book(String author, int year) {
+        Book book = new Book();
+        book.setAuthor(author);
+        book.setPublicationYear(year);
+        return book;
+    }
+
+    private static BookAuthorCountProjection authorCount(String author, long books) {
+        return new BookAuthorCountProjection() {
+            @Override
+            public String getAuthor() {
+                return author;
+            }
+
+            @Override
+            public Long getBooks() {
+                return books;
+            }
+        };
+    }
+
+    private static BookYearCountProjection yearCount(int year, long books) {
+        return new BookYearCountProjection() {
+            @Override
+            public Integer getPublicationYear() {
+                return year;
+            }
+
+            @Override
+            public Long getBooks() {
+                return books;
+            }
+        };
+    }
+}
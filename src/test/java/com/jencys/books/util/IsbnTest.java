@@ -0,0 +1,59 @@
+package com.jencys.books.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsbnTest {
+
+    @Test
+    void normalise_Isbn13WithHyphens_StripsThem() {
+        assertEquals("9780134685991", Isbn.normalise("978-0-13-468599-1"));
+        assertEquals("9780134685991", Isbn.normalise(" 978 0134685991 "));
+    }
+
+    @Test
+    void normalise_Isbn10_ConvertsToIsbn13() {
+        assertEquals("9780134685991", Isbn.normalise("0-13-468599-7"));
+        assertEquals("9780804429573", Isbn.normalise("080442957x"));
+    }
+
+    @Test
+    void stripSeparators_KeepsPartialPrefix() {
+        assertEquals("9780", Isbn.stripSeparators("978-0 "));
+        assertEquals("", Isbn.stripSeparators(" - "));
+    }
+
+    @Test
+    void compactSpellings_Isbn978_IncludesIsbn10() {
+        assertEquals(List.of("9780134685991", "0134685997"), Isbn.compactSpellings(9780134685991L));
+        assertEquals(List.of("9780804429573", "080442957X", "080442957x"), Isbn.compactSpellings(9780804429573L));
+        assertEquals(List.of("9791032305690"), Isbn.compactSpellings(9791032305690L));
+    }
+
+    @Test
+    void parse_WrongCheckDigit_Invalid() {
+        assertEquals(Isbn.INVALID, Isbn.parse("9780134685992"));
+        assertEquals(Isbn.INVALID, Isbn.parse("0-13-468599-8"));
+    }
+
+    @Test
+    void parse_MalformedValues_Invalid() {
+        assertEquals(Isbn.INVALID, Isbn.parse(null));
+        assertEquals(Isbn.INVALID, Isbn.parse(""));
+        assertEquals(Isbn.INVALID, Isbn.parse("97801346859911"));
+        assertEquals(Isbn.INVALID, Isbn.parse("978013468599X"));
+        assertEquals(Isbn.INVALID, Isbn.parse("0X34685997"));
+        // a valid check digit, but not a Bookland prefix
+        assertEquals(Isbn.INVALID, Isbn.parse("1230000000000"));
+        assertFalse(Isbn.isValid("ISBN 9780134685991"));
+    }
+
+    @Test
+    void parse_ReturnsIsbn13AsNumber() {
+        assertEquals(9780134685991L, Isbn.parse("978-0-13-468599-1"));
+        assertEquals(9791032305690L, Isbn.parse("979-10-323-0569-0"));
+    }
+}
@@ -0,0 +1,203 @@
+package com.jencys.books.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jencys.books.config.BooksProperties;
+import com.jencys.books.dto.BookDTO;
+import com.jencys.books.dto.WriteOperationDTO;
+import com.jencys.books.dto.WriteOperationDTO.Status;
+import com.jencys.books.dto.WriteOperationDTO.Type;
+import com.jencys.books.exception.BookNotFoundException;
+import com.jencys.books.exception.DuplicateISBNException;
+import com.jencys.books.exception.WriteOperationNotFoundException;
+import com.jencys.books.exception.WriteQueueFullException;
+import com.jencys.books.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookWriteBehindTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private BookService bookService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BooksProperties booksProperties;
+    private BookWriteBehind bookWriteBehind;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        booksProperties = new BooksProperties();
+        booksProperties.getWriteBehind().setEnabled(true);
+        booksProperties.getWriteBehind().setQueueCapacity(3);
+        booksProperties.getWriteBehind().setJournal(tempDir.resolve("write-behind.journal"));
+        bookWriteBehind = new BookWriteBehind(bookService, transactionTemplate, new ObjectMapper(), booksProperties);
+        bookWriteBehind.recover();
+
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void flush_AppliesQueuedWritesInOneTransaction() throws Exception {
+        when(bookService.createBook(any(BookDTO.class))).thenReturn(book(7L, null));
+        WriteOperationDTO create = bookWriteBehind.submit(Type.CREATE, null, book(null, null));
+        WriteOperationDTO delete = bookWriteBehind.submit(Type.DELETE, 3L, null);
+        assertEquals(Status.PENDING, bookWriteBehind.status(create.getOperationId()).getStatus());
+
+        bookWriteBehind.flush(Duration.ZERO);
+
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(bookService).deleteBook(3L);
+        assertEquals(Status.APPLIED, bookWriteBehind.status(create.getOperationId()).getStatus());
+        assertEquals(7L, bookWriteBehind.status(create.getOperationId()).getBookId());
+        assertEquals(Status.APPLIED, bookWriteBehind.status(delete.getOperationId()).getStatus());
+        // nothing is outstanding, so the journal is truncated
+        assertEquals(0, Files.size(booksProperties.getWriteBehind().getJournal()));
+    }
+
+    @Test
+    void flush_CoalescesWritesToTheSameBook() throws Exception {
+        WriteOperationDTO first = bookWriteBehind.submit(Type.UPDATE, 1L, book(null, null));
+        WriteOperationDTO second = bookWriteBehind.submit(Type.UPDATE, 1L, book(null, null));
+        WriteOperationDTO delete = bookWriteBehind.submit(Type.DELETE, 1L, null);
+
+        bookWriteBehind.flush(Duration.ZERO);
+
+        verify(bookService, never()).updateBook(anyLong(), any(BookDTO.class));
+        verify(bookService).deleteBook(1L);
+        assertEquals(Status.APPLIED, bookWriteBehind.status(first.getOperationId()).getStatus());
+        assertEquals(Status.APPLIED, bookWriteBehind.status(second.getOperationId()).getStatus());
+        assertEquals(Type.UPDATE, bookWriteBehind.status(second.getOperationId()).getType());
+        assertEquals(Status.APPLIED, bookWriteBehind.status(delete.getOperationId()).getStatus());
+    }
+
+    @Test
+    void coalesce_KeepsVersionedUpdatesAndWritesAfterDeleteApart() {
+        List<BookWriteOperation> batch = Arrays.asList(
+                new BookWriteOperation("a", Type.UPDATE, 1L, book(null, null)),
+                new BookWriteOperation("b", Type.UPDATE, 1L, book(null, 4L)),
+                new BookWriteOperation("c", Type.DELETE, 1L, null),
+                new BookWriteOperation("d", Type.UPDATE, 1L, book(null, null)),
+                new BookWriteOperation("e", Type.CREATE, null, book(null, null)));
+
+        List<BookWriteBehind.Slot> slots = BookWriteBehind.coalesce(batch);
+
+        // the delete is not merged into the versioned update, whose check would then be skipped
+        assertEquals(List.of("a", "b", "c", "d", "e"),
+                slots.stream().map(slot -> slot.operation().getId()).toList());
+        assertTrue(slots.stream().allMatch(slot -> slot.operations().size() == 1));
+    }
+
+    @Test
+    void flush_FailingWrite_OnlyFailsThatOperation() throws Exception {
+        when(bookService.createBook(any(BookDTO.class))).thenReturn(book(7L, null));
+        doThrow(new BookNotFoundException("Book not found with id: 3")).when(bookService).deleteBook(3L);
+        WriteOperationDTO create = bookWriteBehind.submit(Type.CREATE, null, book(null, null));
+        WriteOperationDTO delete = bookWriteBehind.submit(Type.DELETE, 3L, null);
+
+        bookWriteBehind.flush(Duration.ZERO);
+
+        WriteOperationDTO failed = bookWriteBehind.status(delete.getOperationId());
+        assertEquals(Status.FAILED, failed.getStatus());
+        assertEquals("Book not found with id: 3", failed.getMessage());
+        assertEquals(Status.APPLIED, bookWriteBehind.status(create.getOperationId()).getStatus());
+        // once in the rolled-back batch and once on its own
+        verify(bookService, times(2)).createBook(any(BookDTO.class));
+    }
+
+    @Test
+    void flush_TakenIsbn_FailsOperationAndAppliesTheRest() throws Exception {
+        when(bookService.createBook(any(BookDTO.class)))
+                .thenThrow(new DuplicateISBNException("A book with ISBN 9780134685991 already exists"));
+        when(bookService.updateBook(eq(4L), any(BookDTO.class))).thenReturn(book(4L, 1L));
+        WriteOperationDTO create = bookWriteBehind.submit(Type.CREATE, null, book(null, null));
+        WriteOperationDTO update = bookWriteBehind.submit(Type.UPDATE, 4L, book(null, null));
+
+        bookWriteBehind.flush(Duration.ZERO);
+
+        WriteOperationDTO failed = bookWriteBehind.status(create.getOperationId());
+        assertEquals(Status.FAILED, failed.getStatus());
+        assertEquals("A book with ISBN 9780134685991 already exists", failed.getMessage());
+        assertEquals(Status.APPLIED, bookWriteBehind.status(update.getOperationId()).getStatus());
+        // nothing is put back for a retry
+        bookWriteBehind.flush(Duration.ZERO);
+        verify(bookService, times(2)).createBook(any(BookDTO.class));
+    }
+
+    @Test
+    void flush_DatabaseUnavailable_KeepsWritesQueued() throws Exception {
+        doThrow(new IllegalStateException("no connection")).when(transactionTemplate).execute(any());
+        when(bookService.createBook(any(BookDTO.class))).thenThrow(new IllegalStateException("no connection"));
+        WriteOperationDTO create = bookWriteBehind.submit(Type.CREATE, null, book(null, null));
+
+        assertThrows(IllegalStateException.class, () -> bookWriteBehind.flush(Duration.ZERO));
+
+        assertEquals(Status.PENDING, bookWriteBehind.status(create.getOperationId()).getStatus());
+        reset(bookService, transactionTemplate);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookService.createBook(any(BookDTO.class))).thenReturn(book(7L, null));
+        bookWriteBehind.flush(Duration.ZERO);
+        assertEquals(Status.APPLIED, bookWriteBehind.status(create.getOperationId()).getStatus());
+    }
+
+    @Test
+    void submit_QueueFull_Throws() {
+        bookWriteBehind.submit(Type.DELETE, 1L, null);
+        bookWriteBehind.submit(Type.DELETE, 2L, null);
+        bookWriteBehind.submit(Type.DELETE, 3L, null);
+
+        assertThrows(WriteQueueFullException.class, () -> bookWriteBehind.submit(Type.DELETE, 4L, null));
+    }
+
+    @Test
+    void recover_ReplaysAcceptedWritesAfterRestart() throws Exception {
+        WriteOperationDTO accepted = bookWriteBehind.submit(Type.UPDATE, 1L, book(null, 2L));
+
+        BookWriteBehind restarted = new BookWriteBehind(bookService, transactionTemplate, new ObjectMapper(),
+                booksProperties);
+        restarted.recover();
+        when(bookService.updateBook(eq(1L), any(BookDTO.class))).thenReturn(book(1L, 3L));
+        restarted.flush(Duration.ZERO);
+
+        verify(bookService).updateBook(eq(1L), argThat(book -> Long.valueOf(2L).equals(book.getVersion())));
+        assertEquals(Status.APPLIED, restarted.status(accepted.getOperationId()).getStatus());
+    }
+
+    @Test
+    void status_Unknown_Throws() {
+        assertThrows(WriteOperationNotFoundException.class, () -> bookWriteBehind.status("missing"));
+    }
+
+    private static BookDTO book(Long id, Long version) {
+        BookDTO book = new BookDTO();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setAuthor("Test Author");
+        book.setIsbn("1234567890");
+        book.setPublicationYear(2024);
+        book.setVersion(version);
+        return book;
+    }
+}
@@ -0,0 +1,53 @@
+package com.jencys.books.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jencys.books.dto.WriteOperationDTO.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void open_ReturnsAcceptedButNotCompletedOperations() throws Exception {
+        Path path = tempDir.resolve("journal");
+        try (WriteJournal journal = new WriteJournal(path, new ObjectMapper())) {
+            assertTrue(journal.open().isEmpty());
+            journal.append(new BookWriteOperation("a", Type.DELETE, 1L, null));
+            journal.append(new BookWriteOperation("b", Type.DELETE, 2L, null));
+            journal.append(new BookWriteOperation("c", Type.DELETE, 3L, null));
+            journal.complete(List.of("b"));
+        }
+        // an append torn by a crash
+        Files.writeString(path, "{\"operation\":{\"id\":\"d\"", StandardOpenOption.APPEND);
+
+        try (WriteJournal journal = new WriteJournal(path, new ObjectMapper())) {
+            List<BookWriteOperation> pending = journal.open();
+
+            assertEquals(List.of("a", "c"), pending.stream().map(BookWriteOperation::getId).toList());
+            assertEquals(3L, pending.get(1).getBookId());
+            assertEquals(2, Files.readAllLines(path).size());
+        }
+    }
+
+    @Test
+    void complete_LastOutstanding_TruncatesJournal() throws Exception {
+        Path path = tempDir.resolve("nested").resolve("journal");
+        try (WriteJournal journal = new WriteJournal(path, new ObjectMapper())) {
+            journal.open();
+            journal.append(new BookWriteOperation("a", Type.DELETE, 1L, null));
+            journal.complete(List.of("a"));
+
+            assertEquals(0, Files.size(path));
+        }
+    }
+}